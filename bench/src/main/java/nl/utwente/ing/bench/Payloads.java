@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.bench;
+
+import nl.utwente.ing.Timestamps;
+
+import java.util.Locale;
+
+/**
+ * Generates response bodies shaped like the ones returned by the API, as described by the schemas of the tests.
+ */
+final class Payloads {
+
+    // 28 May 2018, the date used by most of the tests.
+    private static final long START_MILLIS = 1_527_465_600_000L;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private Payloads() {
+    }
+
+    /**
+     * Generates a single transaction, as returned when creating a transaction.
+     */
+    static String transaction(int id) {
+        StringBuilder builder = new StringBuilder();
+        appendTransaction(builder, id);
+        return builder.toString();
+    }
+
+    /**
+     * Generates a list of transactions, valid according to {@code transactions/transaction-list.json}.
+     */
+    static String transactionList(int size) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            appendTransaction(builder, i + 1);
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Generates a list containing a single filled payment request which is answered by the given number of
+     * transactions, valid according to {@code paymentrequest.json}.
+     */
+    static String paymentRequests(int transactions) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ROOT, "[{\"id\":1,\"description\":\"Benchmark payment request\","
+                        + "\"due_date\":\"%s\",\"amount\":12.5,\"number_of_requests\":%d,\"filled\":true,"
+                        + "\"transactions\":[",
+                Timestamps.format(START_MILLIS + 30 * MILLIS_PER_DAY), transactions));
+        for (int i = 0; i < transactions; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            appendTransaction(builder, i + 1);
+        }
+        return builder.append("]}]").toString();
+    }
+
+    /**
+     * Generates a balance history containing the given number of intervals, valid according to
+     * {@code balancehistory.json}.
+     */
+    static String balanceHistory(int intervals) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < intervals; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(String.format(Locale.ROOT, "{\"open\":%d,\"close\":%d,\"high\":%d,\"low\":%d,"
+                            + "\"volume\":%d,\"timestamp\":%d}",
+                    1000 + i * 10, 1010 + i * 10, 1100 + i * 10, 900 + i * 10, 300, 1_527_465_600 + i * 2_592_000));
+        }
+        return builder.append(']').toString();
+    }
+
+    private static void appendTransaction(StringBuilder builder, int id) {
+        builder.append(String.format(Locale.ROOT, "{\"id\":%d,\"date\":\"%s\",\"amount\":%.2f,"
+                        + "\"externalIBAN\":\"NL39RABO0300065264\",\"type\":\"%s\","
+                        + "\"category\":{\"id\":%d,\"name\":\"Groceries\"},\"description\":\"Transaction %d\"}",
+                id, Timestamps.format(START_MILLIS + id * MILLIS_PER_DAY), 12.5 + id % 100,
+                id % 3 == 0 ? "withdrawal" : "deposit", id % 5 + 1, id));
+    }
+}
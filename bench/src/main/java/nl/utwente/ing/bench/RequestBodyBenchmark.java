@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.bench;
+
+import nl.utwente.ing.RequestBodies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building request bodies through {@link RequestBodies} with the {@code String.format} templates the tests
+ * used before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBodyBenchmark {
+
+    private static final String DATE = "2018-05-28T00:00:00.000Z";
+    private static final String IBAN = "NL39RABO0300065264";
+
+    @Benchmark
+    public String transaction() {
+        return RequestBodies.transaction(DATE, 100, IBAN, "deposit", "Benchmark transaction");
+    }
+
+    @Benchmark
+    public String transactionFormat() {
+        return String.format("{" +
+                "\"date\": \"%s\", " +
+                "\"amount\": %d, " +
+                "\"externalIBAN\": \"%s\", " +
+                "\"type\": \"%s\", " +
+                "\"description\":\"%s\"" +
+                "}", DATE, 100, IBAN, "deposit", "Benchmark transaction");
+    }
+
+    @Benchmark
+    public String categoryRule() {
+        return RequestBodies.categoryRule("Benchmark", IBAN, "deposit", 1, true);
+    }
+
+    @Benchmark
+    public String categoryRuleFormat() {
+        return String.format("{\"description\": \"%s\", \"iBAN\": \"%s\", \"type\": \"%s\", \"category_id\": %d, " +
+                "\"applyOnHistory\": %b}", "Benchmark", IBAN, "deposit", 1, true);
+    }
+}
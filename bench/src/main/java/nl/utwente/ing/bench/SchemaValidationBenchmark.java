@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.bench;
+
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import io.restassured.module.jsv.JsonSchemaValidator;
+import nl.utwente.ing.JsonSchemas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static nl.utwente.ing.JsonSchemas.matchesSchema;
+
+/**
+ * Measures the cost of validating response bodies against the schemas of the tests.
+ * <p>
+ * The {@code uncached} benchmark validates the way the tests used to, by letting RestAssured load and compile the
+ * schema file for every response. The other benchmarks use the precompiled schemas of {@link JsonSchemas}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaValidationBenchmark {
+
+    /**
+     * The number of transactions in the transaction list and in the payment request.
+     */
+    @Param({"20", "1000"})
+    public int transactions;
+
+    private String transactionList;
+    private String paymentRequests;
+    private JsonSchema transactionListSchema;
+    private JsonSchema paymentRequestSchema;
+    private File paymentRequestSchemaFile;
+
+    @Setup
+    public void setUp() {
+        transactionList = Payloads.transactionList(transactions);
+        paymentRequests = Payloads.paymentRequests(transactions);
+        transactionListSchema = JsonSchemas.get("transactions/transaction-list.json");
+        paymentRequestSchema = JsonSchemas.get("paymentrequest.json");
+        paymentRequestSchemaFile = new File(BenchmarkRunner.schemaDirectory(), "paymentrequest.json");
+    }
+
+    @Benchmark
+    public ProcessingReport transactionList() throws IOException, ProcessingException {
+        return transactionListSchema.validate(JsonLoader.fromString(transactionList));
+    }
+
+    @Benchmark
+    public ProcessingReport paymentRequests() throws IOException, ProcessingException {
+        return paymentRequestSchema.validate(JsonLoader.fromString(paymentRequests));
+    }
+
+    /**
+     * Validates through the matcher used by the tests, including the lookup of the schema by name.
+     */
+    @Benchmark
+    public boolean transactionListMatcher() {
+        return matchesSchema("transactions/transaction-list.json").matches(transactionList);
+    }
+
+    @Benchmark
+    public boolean paymentRequestsUncached() {
+        return JsonSchemaValidator.matchesJsonSchema(paymentRequestSchemaFile).matches(paymentRequests);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.bench;
+
+import nl.utwente.ing.Timestamps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares formatting and parsing timestamps through {@link Timestamps} with {@link SimpleDateFormat}, which the
+ * tests used before, and with a plain {@link DateTimeFormatter}.
+ * <p>
+ * Every invocation advances the timestamp by a second, so the hour cache of {@link Timestamps} is hit as often as it
+ * would be when creating a series of transactions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampBenchmark {
+
+    private static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(PATTERN).withZone(ZoneOffset.UTC);
+    private static final String TIMESTAMP = "2018-05-28T13:45:12.345Z";
+
+    private final SimpleDateFormat dateFormat = createDateFormat();
+    private long millis = 1_527_465_600_000L;
+
+    @Benchmark
+    public String format() {
+        return Timestamps.format(millis += 1000);
+    }
+
+    /**
+     * Formats using a format owned by the benchmark thread, the cheapest safe way of using {@link SimpleDateFormat}.
+     */
+    @Benchmark
+    public String formatSimpleDateFormat() {
+        return dateFormat.format(new Date(millis += 1000));
+    }
+
+    /**
+     * Formats using a new format for every timestamp, as needed when a format would be shared between threads.
+     */
+    @Benchmark
+    public String formatNewSimpleDateFormat() {
+        return createDateFormat().format(new Date(millis += 1000));
+    }
+
+    @Benchmark
+    public String formatDateTimeFormatter() {
+        return FORMATTER.format(Instant.ofEpochMilli(millis += 1000));
+    }
+
+    @Benchmark
+    public long parse() {
+        return Timestamps.parse(TIMESTAMP);
+    }
+
+    @Benchmark
+    public long parseSimpleDateFormat() throws ParseException {
+        return dateFormat.parse(TIMESTAMP).getTime();
+    }
+
+    private static SimpleDateFormat createDateFormat() {
+        SimpleDateFormat format = new SimpleDateFormat(PATTERN);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load;
+
+import io.restassured.RestAssured;
+import nl.utwente.ing.PooledHttpClient;
+import nl.utwente.ing.TestData;
+import nl.utwente.ing.embedded.EmbeddedApi;
+
+/**
+ * Points RestAssured at the instance of the API under load, as given by the {@code load.baseUri} system property
+ * (default {@code http://localhost}) and the {@code load.port} system property (default 8080). When the
+ * {@code load.embedded} system property is {@code true}, load is put on the embedded API of the tests instead.
+ */
+public final class ApiTarget {
+
+    private ApiTarget() {
+    }
+
+    /**
+     * Configures RestAssured to send all requests to the API under load, through the pooled connections of
+     * {@link PooledHttpClient}.
+     * The created resources are not deleted afterwards, so load should be put on a dedicated instance of the API.
+     */
+    public static void configure() {
+        if (Boolean.getBoolean("load.embedded")) {
+            EmbeddedApi.install();
+        } else {
+            // Keeps the helpers of the tests from pointing RestAssured at the embedded API when they are first used.
+            EmbeddedApi.disable();
+            RestAssured.baseURI = System.getProperty("load.baseUri", RestAssured.DEFAULT_URI);
+            RestAssured.port = Integer.getInteger("load.port", RestAssured.DEFAULT_PORT);
+        }
+        PooledHttpClient.install();
+        TestData.setRecording(false);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A sequence of operations which a user performs one after the other, with some think time in between, on behalf of
+ * a single session.
+ */
+public final class Journey {
+
+    private final String name;
+    private final List<Operation> steps;
+
+    private Journey(String name, List<Operation> steps) {
+        this.name = name;
+        this.steps = steps;
+    }
+
+    /**
+     * Returns a journey consisting of a single operation, named after the operation.
+     *
+     * @param operation the operation of the journey
+     * @return the journey
+     */
+    public static Journey of(Operation operation) {
+        return new Journey(operation.name(), Collections.singletonList(operation));
+    }
+
+    /**
+     * Parses a journey in the format {@code OPERATION,OPERATION}, e.g. {@code CREATE_TRANSACTION,GET_TRANSACTIONS}.
+     *
+     * @param name the name of the journey
+     * @param steps the operations of the journey, in the order in which they are sent
+     * @return the parsed journey
+     * @throws IllegalArgumentException if the journey is empty or refers to an unknown operation
+     */
+    public static Journey parse(String name, String steps) {
+        List<Operation> operations = new ArrayList<>();
+        for (String step : steps.split(",")) {
+            if (!step.trim().isEmpty()) {
+                operations.add(Operation.valueOf(step.trim()));
+            }
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Journey without any operations: %s", name));
+        }
+        return new Journey(name, Collections.unmodifiableList(operations));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Operation> getSteps() {
+        return steps;
+    }
+}
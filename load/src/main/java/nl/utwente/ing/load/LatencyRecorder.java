@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records latencies per endpoint and response status code, corrected for coordinated omission.
+ * <p>
+ * A client which waits for a stalled server does not send the requests it was supposed to send in the meantime, so
+ * measuring from the moment a request was actually sent hides most of the stall. Every request is therefore recorded
+ * with the time at which it was intended to be sent according to the schedule of the load, and its response time is
+ * measured from that moment. The service time, measured from the moment the request was actually sent, is recorded as
+ * well, so the difference between both shows how much the client fell behind.
+ * <p>
+ * Latencies are recorded in microseconds into HdrHistogram {@link Recorder}s, which can be written by any number of
+ * threads without locking. Reading the histograms merges everything recorded so far into accumulated histograms,
+ * which is the only synchronized operation.
+ */
+public final class LatencyRecorder {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    // Status codes outside of this range, and requests without a response, are recorded as status 0.
+    private static final int MAX_STATUS = 600;
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Records the latency of a request.
+     *
+     * @param endpoint the endpoint of the request, e.g. {@code GET api/v1/transactions}
+     * @param status the status code of the response, or 0 if no response was received
+     * @param intendedNanos the {@link System#nanoTime()} at which the request should have been sent
+     * @param startNanos the {@link System#nanoTime()} at which the request was sent
+     * @param endNanos the {@link System#nanoTime()} at which the response was received
+     */
+    public void record(String endpoint, int status, long intendedNanos, long startNanos, long endNanos) {
+        Series series = endpoint(endpoint).series(status < 0 || status >= MAX_STATUS ? 0 : status);
+        long intended = Math.min(intendedNanos, startNanos);
+        series.responseTimes.recordValue(TimeUnit.NANOSECONDS.toMicros(endNanos - intended));
+        series.serviceTimes.recordValue(TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos));
+    }
+
+    /**
+     * Returns the endpoints for which latencies have been recorded.
+     *
+     * @return the endpoints, in alphabetical order
+     */
+    public List<String> getEndpoints() {
+        return new ArrayList<>(new TreeMap<>(endpoints).keySet());
+    }
+
+    /**
+     * Returns the status codes of the responses of an endpoint.
+     *
+     * @param endpoint the endpoint
+     * @return the status codes in ascending order, 0 standing for requests without a response
+     */
+    public synchronized List<Integer> getStatuses(String endpoint) {
+        return new ArrayList<>(accumulate(endpoint).keySet());
+    }
+
+    /**
+     * Returns the response times of an endpoint, measured from the intended send times, over all status codes.
+     *
+     * @param endpoint the endpoint
+     * @return a copy of the histogram, in microseconds
+     */
+    public synchronized Histogram getResponseTimes(String endpoint) {
+        Histogram merged = new Histogram(SIGNIFICANT_DIGITS);
+        for (Series series : accumulate(endpoint).values()) {
+            merged.add(series.accumulatedResponseTimes);
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the response times of the responses of an endpoint with a specific status code.
+     *
+     * @param endpoint the endpoint
+     * @param status the status code
+     * @return a copy of the histogram, in microseconds, which is empty if there were no such responses
+     */
+    public synchronized Histogram getResponseTimes(String endpoint, int status) {
+        Histogram copy = new Histogram(SIGNIFICANT_DIGITS);
+        Series series = accumulate(endpoint).get(status);
+        if (series != null) {
+            copy.add(series.accumulatedResponseTimes);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the service times of an endpoint, measured from the actual send times, over all status codes.
+     *
+     * @param endpoint the endpoint
+     * @return a copy of the histogram, in microseconds
+     */
+    public synchronized Histogram getServiceTimes(String endpoint) {
+        Histogram merged = new Histogram(SIGNIFICANT_DIGITS);
+        for (Series series : accumulate(endpoint).values()) {
+            merged.add(series.accumulatedServiceTimes);
+        }
+        return merged;
+    }
+
+    private Endpoint endpoint(String name) {
+        Endpoint endpoint = endpoints.get(name);
+        if (endpoint == null) {
+            Endpoint created = new Endpoint();
+            endpoint = endpoints.putIfAbsent(name, created);
+            if (endpoint == null) {
+                endpoint = created;
+            }
+        }
+        return endpoint;
+    }
+
+    /**
+     * Moves the latencies recorded since the last call into the accumulated histograms of an endpoint.
+     *
+     * @return the series of the endpoint by status code
+     */
+    private Map<Integer, Series> accumulate(String name) {
+        Map<Integer, Series> statuses = new TreeMap<>();
+        Endpoint endpoint = endpoints.get(name);
+        if (endpoint == null) {
+            return statuses;
+        }
+        for (int status = 0; status < MAX_STATUS; status++) {
+            Series series = endpoint.statuses.get(status);
+            if (series != null) {
+                series.accumulate();
+                statuses.put(status, series);
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * The latencies of an endpoint, by status code.
+     */
+    private static class Endpoint {
+
+        private final AtomicReferenceArray<Series> statuses = new AtomicReferenceArray<>(MAX_STATUS);
+
+        private Series series(int status) {
+            Series series = statuses.get(status);
+            if (series == null) {
+                statuses.compareAndSet(status, null, new Series());
+                series = statuses.get(status);
+            }
+            return series;
+        }
+    }
+
+    /**
+     * The latencies of the responses of an endpoint with a single status code.
+     */
+    private static class Series {
+
+        private final Recorder responseTimes = new Recorder(SIGNIFICANT_DIGITS);
+        private final Recorder serviceTimes = new Recorder(SIGNIFICANT_DIGITS);
+        // Only accessed while holding the lock of the LatencyRecorder.
+        private final Histogram accumulatedResponseTimes = new Histogram(SIGNIFICANT_DIGITS);
+        private final Histogram accumulatedServiceTimes = new Histogram(SIGNIFICANT_DIGITS);
+        // The interval histograms last returned by the recorders, which they reuse for the next interval.
+        private Histogram responseTimesInterval;
+        private Histogram serviceTimesInterval;
+
+        private void accumulate() {
+            responseTimesInterval = responseTimes.getIntervalHistogram(responseTimesInterval);
+            accumulatedResponseTimes.add(responseTimesInterval);
+            serviceTimesInterval = serviceTimes.getIntervalHistogram(serviceTimesInterval);
+            accumulatedServiceTimes.add(serviceTimesInterval);
+        }
+    }
+}
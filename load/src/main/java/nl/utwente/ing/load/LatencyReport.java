@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latencies measured during a load run, recorded per operation and status code by a {@link LatencyRecorder}.
+ * <p>
+ * Latencies are measured from the time at which a request was intended to be sent, so they are corrected for
+ * coordinated omission, and recorded in microseconds with three significant digits. The service times, measured from
+ * the time at which a request was actually sent, are reported alongside. All methods may be called concurrently.
+ */
+public final class LatencyReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final Map<Operation, Endpoint> endpoints = new EnumMap<>(Operation.class);
+    private volatile long durationNanos;
+
+    public LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            endpoints.put(operation, new Endpoint());
+        }
+    }
+
+    /**
+     * Records the latency of a request.
+     *
+     * @param operation the operation of the request
+     * @param status the status code of the response, or 0 if no response was received
+     * @param intendedNanos the {@link System#nanoTime()} at which the request should have been sent
+     * @param startNanos the {@link System#nanoTime()} at which the request was sent
+     * @param endNanos the {@link System#nanoTime()} at which the response was received
+     * @param failed whether the request failed
+     */
+    public void record(Operation operation, int status, long intendedNanos, long startNanos, long endNanos,
+                       boolean failed) {
+        recorder.record(operation.getEndpoint(), status, intendedNanos, startNanos, endNanos);
+        Endpoint endpoint = endpoints.get(operation);
+        endpoint.count.increment();
+        if (failed) {
+            endpoint.errors.increment();
+        }
+    }
+
+    /**
+     * Records a request which was not sent, because too many requests were outstanding at its arrival time.
+     *
+     * @param operation the operation of the request
+     */
+    public void drop(Operation operation) {
+        endpoints.get(operation).dropped.increment();
+    }
+
+    /**
+     * Sets the length of the measured part of the run, which is used to compute the throughput.
+     *
+     * @param durationNanos the length of the measurement in nanoseconds
+     */
+    public void setDuration(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Returns the histogram containing the response times of an operation, corrected for coordinated omission.
+     *
+     * @param operation the operation
+     * @return a copy of the histogram of the operation, in microseconds
+     */
+    public Histogram getHistogram(Operation operation) {
+        return recorder.getResponseTimes(operation.getEndpoint());
+    }
+
+    /**
+     * Prints a summary table containing the percentiles of every operation which has been used, followed by the
+     * percentiles of every status code returned by each operation.
+     *
+     * @param out the stream to print the summary to
+     */
+    public void printSummary(PrintStream out) {
+        out.printf(Locale.ROOT, "%-32s %10s %8s %8s %10s %10s %10s %10s %10s %12s%n", "endpoint", "count", "errors",
+                "dropped", "req/s", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "max (ms)", "svc p99 (ms)");
+        for (Map.Entry<Operation, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            if (endpoint.isUsed()) {
+                String name = entry.getKey().getEndpoint();
+                Histogram histogram = recorder.getResponseTimes(name);
+                out.printf(Locale.ROOT, "%-32s %10d %8d %8d %10.1f %10.3f %10.3f %10.3f %10.3f %12.3f%n", name,
+                        histogram.getTotalCount(), endpoint.errors.sum(), endpoint.dropped.sum(),
+                        throughput(histogram), millis(histogram, 50.0), millis(histogram, 99.0),
+                        millis(histogram, 99.9), histogram.getMaxValue() / MICROS_PER_MILLI,
+                        millis(recorder.getServiceTimes(name), 99.0));
+            }
+        }
+
+        out.println();
+        out.printf(Locale.ROOT, "%-32s %6s %10s %10s %10s %10s %10s%n", "endpoint", "status", "count", "p50 (ms)",
+                "p99 (ms)", "p99.9 (ms)", "max (ms)");
+        for (String name : recorder.getEndpoints()) {
+            for (int status : recorder.getStatuses(name)) {
+                Histogram histogram = recorder.getResponseTimes(name, status);
+                out.printf(Locale.ROOT, "%-32s %6d %10d %10.3f %10.3f %10.3f %10.3f%n", name, status,
+                        histogram.getTotalCount(), millis(histogram, 50.0), millis(histogram, 99.0),
+                        millis(histogram, 99.9), histogram.getMaxValue() / MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    /**
+     * Writes the report to a directory. The directory receives the summary as {@code summary.txt}, the percentiles
+     * per operation as {@code summary.csv} and per operation and status code as {@code status.csv}. The full
+     * percentile distributions of every used operation are written as {@code <OPERATION>.hgrm} for the response
+     * times and {@code <OPERATION>.service.hgrm} for the service times, which can be plotted using HdrHistogram's
+     * plotter.
+     *
+     * @param directory the directory to write the report to, which is created if it does not exist
+     * @throws IOException if the report could not be written
+     */
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintStream out = open(directory.resolve("summary.txt"))) {
+            printSummary(out);
+        }
+
+        try (PrintStream out = open(directory.resolve("summary.csv"))) {
+            out.println("endpoint,count,errors,dropped,throughput,p50_ms,p99_ms,p99_9_ms,max_ms,service_p99_ms");
+            for (Map.Entry<Operation, Endpoint> entry : endpoints.entrySet()) {
+                Endpoint endpoint = entry.getValue();
+                if (endpoint.isUsed()) {
+                    String name = entry.getKey().getEndpoint();
+                    Histogram histogram = recorder.getResponseTimes(name);
+                    out.printf(Locale.ROOT, "%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n", name,
+                            histogram.getTotalCount(), endpoint.errors.sum(), endpoint.dropped.sum(),
+                            throughput(histogram), millis(histogram, 50.0), millis(histogram, 99.0),
+                            millis(histogram, 99.9), histogram.getMaxValue() / MICROS_PER_MILLI,
+                            millis(recorder.getServiceTimes(name), 99.0));
+                }
+            }
+        }
+
+        try (PrintStream out = open(directory.resolve("status.csv"))) {
+            out.println("endpoint,status,count,p50_ms,p99_ms,p99_9_ms,max_ms");
+            for (String name : recorder.getEndpoints()) {
+                for (int status : recorder.getStatuses(name)) {
+                    Histogram histogram = recorder.getResponseTimes(name, status);
+                    out.printf(Locale.ROOT, "%s,%d,%d,%.3f,%.3f,%.3f,%.3f%n", name, status,
+                            histogram.getTotalCount(), millis(histogram, 50.0), millis(histogram, 99.0),
+                            millis(histogram, 99.9), histogram.getMaxValue() / MICROS_PER_MILLI);
+                }
+            }
+        }
+
+        for (Operation operation : endpoints.keySet()) {
+            Histogram responseTimes = recorder.getResponseTimes(operation.getEndpoint());
+            if (responseTimes.getTotalCount() > 0) {
+                try (PrintStream out = open(directory.resolve(operation.name() + ".hgrm"))) {
+                    responseTimes.outputPercentileDistribution(out, MICROS_PER_MILLI);
+                }
+                try (PrintStream out = open(directory.resolve(operation.name() + ".service.hgrm"))) {
+                    recorder.getServiceTimes(operation.getEndpoint()).outputPercentileDistribution(out,
+                            MICROS_PER_MILLI);
+                }
+            }
+        }
+    }
+
+    private double throughput(Histogram histogram) {
+        long duration = durationNanos;
+        return duration > 0 ? histogram.getTotalCount() * 1e9 / duration : 0;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    private static PrintStream open(Path file) throws IOException {
+        return new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * The counters of a single operation.
+     */
+    private static class Endpoint {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        private boolean isUsed() {
+            return count.sum() > 0 || dropped.sum() > 0;
+        }
+    }
+}
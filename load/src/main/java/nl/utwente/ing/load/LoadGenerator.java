@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load;
+
+import nl.utwente.ing.Util;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the API at a fixed arrival rate, following an open workload model.
+ * <p>
+ * Users arrive according to a schedule which does not depend on how fast earlier requests are answered, like
+ * independent users do, and each make a {@link Journey} of one or more requests. When the service slows down, the
+ * number of outstanding journeys grows instead of the request rate dropping, as it would when a fixed number of
+ * threads sends requests in a loop. Journeys arriving while the maximum number of outstanding journeys is reached are
+ * dropped and reported as such. Think times between the steps of a journey are exponentially distributed.
+ * <p>
+ * Latencies are measured from the time at which a request was scheduled to be sent rather than from when it was
+ * actually sent, so a client which falls behind while the service stalls does not hide the stall from the results.
+ * See {@link LatencyRecorder}.
+ * <p>
+ * The generator is configured using the following system properties:
+ * <ul>
+ *     <li>{@code load.baseUri}: the base URI of the API (default {@code http://localhost})</li>
+ *     <li>{@code load.port}: the port of the API (default 8080)</li>
+ *     <li>{@code load.embedded}: whether to put load on the embedded API of the tests instead, in which case the base
+ *     URI and port are ignored (default false)</li>
+ *     <li>{@code load.profile}: the name of the {@link WorkloadProfile} to run, which sets the journeys, rate, think
+ *     time and number of sessions</li>
+ *     <li>{@code load.mix}: without a profile, the weighted operations to send, see {@link WeightedMix#parse}</li>
+ *     <li>{@code load.rate}: the arrival rate in journeys per second (default 100, or that of the profile)</li>
+ *     <li>{@code load.arrivals}: {@code poisson} for exponentially distributed gaps between arrivals or
+ *     {@code uniform} for equal gaps (default {@code poisson})</li>
+ *     <li>{@code load.warmup}: the number of seconds during which latencies are not recorded (default 10)</li>
+ *     <li>{@code load.duration}: the number of seconds during which latencies are recorded (default 60)</li>
+ *     <li>{@code load.sessions}: the number of sessions between which journeys are spread (default 10, or that of
+ *     the profile)</li>
+ *     <li>{@code load.maxOutstanding}: the maximum number of outstanding journeys (default 1000)</li>
+ *     <li>{@code load.report}: the directory the report is written to (default {@code target/load-report})</li>
+ * </ul>
+ */
+public final class LoadGenerator {
+
+    private static final String DEFAULT_MIX = "GET_TRANSACTIONS=30,CREATE_TRANSACTION=20,GET_BALANCE_HISTORY=15,"
+            + "GET_CATEGORIES=10,GET_CATEGORY_RULES=5,GET_PAYMENT_REQUESTS=10,GET_SAVING_GOALS=5,CREATE_CATEGORY=2,"
+            + "CREATE_PAYMENT_REQUEST=2,CREATE_SAVING_GOAL=1";
+    // The time to wait for outstanding requests after the last arrival, on top of the socket timeout.
+    private static final long DRAIN_MARGIN_MILLIS = 5_000;
+    // Exponentially distributed think times rarely exceed this multiple of their mean.
+    private static final int MAX_THINK_TIME_FACTOR = 5;
+
+    private final WeightedMix<Journey> journeys;
+    private final long thinkTimeNanos;
+    private final double rate;
+    private final boolean poisson;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final int maxOutstanding;
+
+    /**
+     * Creates a load generator.
+     *
+     * @param profile the journeys to make and the think time between their steps
+     * @param rate the arrival rate in journeys per second
+     * @param poisson whether the gaps between arrivals are exponentially distributed instead of equal
+     * @param warmupSeconds the number of seconds before latencies are recorded
+     * @param durationSeconds the number of seconds during which latencies are recorded
+     * @param maxOutstanding the maximum number of outstanding journeys
+     */
+    public LoadGenerator(WorkloadProfile profile, double rate, boolean poisson, long warmupSeconds,
+                         long durationSeconds, int maxOutstanding) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException(String.format("The arrival rate must be positive: %f", rate));
+        }
+        this.journeys = profile.getJourneys();
+        this.thinkTimeNanos = TimeUnit.MILLISECONDS.toNanos(profile.getThinkTimeMillis());
+        this.rate = rate;
+        this.poisson = poisson;
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ApiTarget.configure();
+
+        String profileName = System.getProperty("load.profile");
+        WorkloadProfile profile = profileName == null
+                ? WorkloadProfile.ofOperations(System.getProperty("load.mix", DEFAULT_MIX), 100, 10)
+                : WorkloadProfile.load(profileName);
+        System.out.printf("Running workload profile %s: %s%n", profile.getName(), profile.getDescription());
+
+        LoadGenerator generator = new LoadGenerator(profile,
+                Double.parseDouble(System.getProperty("load.rate", Double.toString(profile.getRate()))),
+                !"uniform".equals(System.getProperty("load.arrivals", "poisson")),
+                Long.getLong("load.warmup", 10),
+                Long.getLong("load.duration", 60),
+                Integer.getInteger("load.maxOutstanding", 1_000));
+
+        List<String> sessionIds = new ArrayList<>();
+        for (int i = Integer.getInteger("load.sessions", profile.getSessions()); i > 0; i--) {
+            sessionIds.add(Util.getSessionID());
+        }
+
+        LatencyReport report = generator.run(sessionIds);
+        report.printSummary(System.out);
+        report.write(Paths.get(System.getProperty("load.report", "target/load-report")));
+    }
+
+    /**
+     * Starts journeys on behalf of the given sessions until the warmup and measurement have passed, and waits for
+     * the outstanding journeys to complete.
+     *
+     * @param sessionIds the sessions between which the journeys are spread uniformly
+     * @return the latencies measured after the warmup
+     * @throws InterruptedException if interrupted while sending requests
+     */
+    public LatencyReport run(List<String> sessionIds) throws InterruptedException {
+        ResponseStatus.install();
+        LatencyReport report = new LatencyReport();
+        Semaphore outstanding = new Semaphore(maxOutstanding);
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "load-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Random random = new Random();
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+
+        long start = System.nanoTime();
+        long measurementStart = start + warmupNanos;
+        long end = measurementStart + durationNanos;
+        // The intended arrival time is kept as a double, so rounding errors do not accumulate into a lower rate.
+        double arrival = start;
+        try {
+            while (arrival < end) {
+                long arrivalNanos = (long) arrival;
+                sleepUntil(arrivalNanos);
+
+                Journey journey = journeys.next(random);
+                String sessionId = sessionIds.get(random.nextInt(sessionIds.size()));
+                boolean measured = arrivalNanos >= measurementStart;
+                if (outstanding.tryAcquire()) {
+                    executor.execute(() -> {
+                        try {
+                            execute(journey, arrivalNanos, sessionId, measured ? report : null);
+                        } finally {
+                            outstanding.release();
+                        }
+                    });
+                } else if (measured) {
+                    for (Operation operation : journey.getSteps()) {
+                        report.drop(operation);
+                    }
+                }
+
+                arrival += poisson ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+            }
+
+            long drainNanos = longestJourney() * (TimeUnit.MILLISECONDS.toNanos(
+                    Integer.getInteger("http.socketTimeout", 30_000)) + MAX_THINK_TIME_FACTOR * thinkTimeNanos)
+                    + TimeUnit.MILLISECONDS.toNanos(DRAIN_MARGIN_MILLIS);
+            if (!outstanding.tryAcquire(maxOutstanding, drainNanos, TimeUnit.NANOSECONDS)) {
+                System.err.printf("%d requests were still outstanding at the end of the run%n",
+                        maxOutstanding - outstanding.availablePermits());
+            }
+            report.setDuration(durationNanos);
+            return report;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends the requests of a journey, thinking between them, and records their latencies if the journey is part of
+     * the measurement.
+     *
+     * @param journey the journey to make
+     * @param arrivalNanos the time at which the journey was scheduled to start
+     * @param sessionId the session on behalf of which the requests are sent
+     * @param report the report to record the latencies in, or {@code null} during the warmup
+     */
+    private void execute(Journey journey, long arrivalNanos, String sessionId, LatencyReport report) {
+        List<Operation> steps = journey.getSteps();
+        long intended = arrivalNanos;
+        for (int i = 0; i < steps.size(); i++) {
+            if (i > 0) {
+                // The next step is intended to be sent after thinking about the response to the previous one.
+                intended = System.nanoTime()
+                        + (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * thinkTimeNanos);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(intended - System.nanoTime());
+                } catch (InterruptedException e) {
+                    // The run has been aborted.
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            execute(steps.get(i), sessionId, intended, report);
+        }
+    }
+
+    private int longestJourney() {
+        int longest = 0;
+        for (Journey journey : journeys.getValues()) {
+            longest = Math.max(longest, journey.getSteps().size());
+        }
+        return longest;
+    }
+
+    /**
+     * Sends a single request and records its latency, if the request is part of the measurement.
+     *
+     * @param operation the operation to send
+     * @param sessionId the session on behalf of which the request is sent
+     * @param intendedNanos the time at which the request should have been sent according to the schedule
+     * @param report the report to record the latency in, or {@code null} during the warmup
+     */
+    private static void execute(Operation operation, String sessionId, long intendedNanos, LatencyReport report) {
+        ResponseStatus.take();
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            operation.execute(sessionId);
+        } catch (Exception | AssertionError e) {
+            failed = true;
+        }
+        long end = System.nanoTime();
+        if (report != null) {
+            report.record(operation, ResponseStatus.take(), intendedNanos, start, end, failed);
+        }
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load;
+
+import nl.utwente.ing.TestClock;
+import nl.utwente.ing.Timestamps;
+import nl.utwente.ing.Util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * The requests which can be sent by the load generator, one for every endpoint and method of the API.
+ * <p>
+ * Requests which create resources go through the helpers in {@link Util}, so they are validated the same way as in
+ * the functional tests. An operation fails by throwing an exception or an {@link AssertionError}.
+ */
+public enum Operation {
+    CREATE_SESSION("POST api/v1/sessions") {
+        @Override
+        void execute(String sessionId) {
+            Util.getSessionID();
+        }
+    },
+    GET_TRANSACTIONS("GET api/v1/transactions") {
+        @Override
+        void execute(String sessionId) {
+            get("api/v1/transactions", sessionId);
+        }
+    },
+    CREATE_TRANSACTION("POST api/v1/transactions") {
+        @Override
+        void execute(String sessionId) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Util.createTestTransaction(Timestamps.format(TestClock.now()), random.nextInt(1, 1000),
+                    "NL39RABO0300065264", random.nextBoolean() ? "deposit" : "withdrawal", DESCRIPTION, sessionId);
+        }
+    },
+    GET_CATEGORIES("GET api/v1/categories") {
+        @Override
+        void execute(String sessionId) {
+            get("api/v1/categories", sessionId);
+        }
+    },
+    CREATE_CATEGORY("POST api/v1/categories") {
+        @Override
+        void execute(String sessionId) {
+            Util.createTestCategory(DESCRIPTION, sessionId);
+        }
+    },
+    CREATE_CATEGORY_RULE("POST api/v1/categoryRules") {
+        @Override
+        void execute(String sessionId) {
+            // Matches the transactions created by CREATE_TRANSACTION, so that creating them involves rule matching.
+            Util.createTestCategoryRule(DESCRIPTION, "", "", categoryOf(sessionId), false, sessionId);
+        }
+    },
+    GET_CATEGORY_RULES("GET api/v1/categoryRules") {
+        @Override
+        void execute(String sessionId) {
+            get("api/v1/categoryRules", sessionId);
+        }
+    },
+    GET_BALANCE_HISTORY("GET api/v1/balance/history") {
+        @Override
+        void execute(String sessionId) {
+            get("api/v1/balance/history?interval=month&intervals=12", sessionId);
+        }
+    },
+    GET_PAYMENT_REQUESTS("GET api/v1/paymentRequests") {
+        @Override
+        void execute(String sessionId) {
+            get("api/v1/paymentRequests", sessionId);
+        }
+    },
+    CREATE_PAYMENT_REQUEST("POST api/v1/paymentRequests") {
+        @Override
+        void execute(String sessionId) {
+            Util.createTestPaymentRequest(DESCRIPTION, TestClock.now().plusMonths(1), 10, 3, sessionId);
+        }
+    },
+    GET_SAVING_GOALS("GET api/v1/savingGoals") {
+        @Override
+        void execute(String sessionId) {
+            get("api/v1/savingGoals", sessionId);
+        }
+    },
+    CREATE_SAVING_GOAL("POST api/v1/savingGoals") {
+        @Override
+        void execute(String sessionId) {
+            Util.createTestSavingGoal(DESCRIPTION, 1000, 100, 0, sessionId);
+        }
+    };
+
+    private static final String DESCRIPTION = "Load test";
+    // The category which the category rules of a session assign, created by the first rule of the session.
+    private static final ConcurrentMap<String, Integer> RULE_CATEGORIES = new ConcurrentHashMap<>();
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Returns the method and path of the endpoint accessed by this operation, as used in the reports.
+     *
+     * @return the endpoint, e.g. {@code GET api/v1/transactions}
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Sends the request of this operation and checks its response.
+     *
+     * @param sessionId the session on behalf of which the request is sent
+     */
+    abstract void execute(String sessionId);
+
+    private static int categoryOf(String sessionId) {
+        return RULE_CATEGORIES.computeIfAbsent(sessionId, key -> Util.createTestCategory(DESCRIPTION, key));
+    }
+
+    private static void get(String path, String sessionId) {
+        given()
+                .header("X-session-ID", sessionId)
+                .get(path)
+                .then()
+                .assertThat()
+                .statusCode(200);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Remembers the status code of the last response received by every thread, so the status of requests sent through
+ * the helpers in {@link nl.utwente.ing.Util} can be recorded without changing the helpers.
+ */
+public final class ResponseStatus implements Filter {
+
+    private static final ThreadLocal<int[]> LAST_STATUS = ThreadLocal.withInitial(() -> new int[1]);
+
+    private static boolean installed;
+
+    private ResponseStatus() {
+    }
+
+    /**
+     * Adds the filter to all subsequent requests made through RestAssured. Calling this method more than once has
+     * no further effect.
+     */
+    public static synchronized void install() {
+        if (!installed) {
+            RestAssured.filters(new ResponseStatus());
+            installed = true;
+        }
+    }
+
+    /**
+     * Returns and clears the status code of the last response received by the current thread.
+     *
+     * @return the status code, or 0 if no response has been received since the last call
+     */
+    public static int take() {
+        int[] status = LAST_STATUS.get();
+        int last = status[0];
+        status[0] = 0;
+        return last;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        Response response = ctx.next(requestSpec, responseSpec);
+        LAST_STATUS.get()[0] = response.getStatusCode();
+        return response;
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import nl.utwente.ing.TrafficLog;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Replays a {@link TrafficLog} captured from the tests or the load generator against an instance of the API, and
+ * compares the latencies of the replay with the captured ones.
+ * <p>
+ * Every request is sent at its captured time divided by the speed of the replay, regardless of whether earlier
+ * requests have been answered, using up to the given number of outstanding requests. The sessions and resources
+ * created by the replay get different IDs than the captured ones. Captured IDs are therefore replaced by the new ones
+ * in the session header, in the paths of requests and in the categories referred to by JSON request bodies, i.e. the
+ * {@code category_id} of category rules and category assignments and the {@code category.id} of transactions. A
+ * request waits until the request creating the session or resource has been answered. The replayer is configured
+ * using the following system properties:
+ * <ul>
+ *     <li>{@code replay.file}: the traffic log to replay</li>
+ *     <li>{@code replay.speed}: the speed relative to the captured traffic, e.g. 10 (default 1)</li>
+ *     <li>{@code replay.maxOutstanding}: the maximum number of outstanding requests (default 1000), which should not
+ *     exceed {@code http.maxConnections}</li>
+ *     <li>{@code replay.report}: the directory the report is written to (default {@code target/replay-report})</li>
+ * </ul>
+ * The report compares the captured and replayed latency percentiles per endpoint, counts the responses with a
+ * different status code than captured, and reports how late requests were sent compared to their schedule.
+ */
+public final class TrafficReplayer {
+
+    private static final String SESSION_HEADER = "X-session-ID";
+    private static final String SESSIONS_PATH = "api/v1/sessions";
+    private static final String CATEGORIES_PATH = "api/v1/categories";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final double speed;
+    private final int maxOutstanding;
+
+    // The new IDs of captured sessions, and of captured resources keyed by session, resource path and ID.
+    private final ConcurrentMap<String, CompletableFuture<String>> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<String>> resources = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Histogram lag = new ConcurrentHistogram(3);
+
+    /**
+     * Creates a replayer.
+     *
+     * @param speed the speed relative to the captured traffic
+     * @param maxOutstanding the maximum number of outstanding requests
+     */
+    public TrafficReplayer(double speed, int maxOutstanding) {
+        if (speed <= 0) {
+            throw new IllegalArgumentException(String.format("The speed must be positive: %f", speed));
+        }
+        this.speed = speed;
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String file = System.getProperty("replay.file");
+        if (file == null) {
+            throw new IllegalArgumentException("The traffic log to replay must be set using replay.file");
+        }
+        ApiTarget.configure();
+
+        TrafficReplayer replayer = new TrafficReplayer(Double.parseDouble(System.getProperty("replay.speed", "1")),
+                Integer.getInteger("replay.maxOutstanding", 1_000));
+        replayer.replay(Paths.get(file));
+        replayer.printSummary(System.out);
+        replayer.write(Paths.get(System.getProperty("replay.report", "target/replay-report")));
+    }
+
+    /**
+     * Replays a log and waits for all requests to be answered.
+     *
+     * @param file the traffic log to replay
+     * @throws IOException if the log could not be read
+     * @throws InterruptedException if interrupted while replaying
+     */
+    public void replay(Path file) throws IOException, InterruptedException {
+        Semaphore outstanding = new Semaphore(maxOutstanding);
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "traffic-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        try (TrafficLog.Reader reader = TrafficLog.read(file)) {
+            TrafficLog.Entry entry;
+            while ((entry = reader.next()) != null) {
+                long intended = start + (long) (TimeUnit.MICROSECONDS.toNanos(entry.getOffsetMicros()) / speed);
+                sleepUntil(intended);
+                // Requests which wait for a free slot are sent late, which shows up as lag.
+                outstanding.acquire();
+
+                CompletableFuture<String> created = register(entry);
+                TrafficLog.Entry replayed = entry;
+                executor.execute(() -> {
+                    try {
+                        send(replayed, intended, created);
+                    } finally {
+                        outstanding.release();
+                    }
+                });
+            }
+            outstanding.acquire(maxOutstanding);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Registers the ID which will be created by a request, before any later request can refer to it.
+     *
+     * @return the future receiving the new ID, or {@code null} if the request did not create anything
+     */
+    private CompletableFuture<String> register(TrafficLog.Entry entry) {
+        if (entry.getCreatedId().isEmpty()) {
+            return null;
+        }
+        CompletableFuture<String> created = new CompletableFuture<>();
+        String path = stripQuery(entry.getPath());
+        if (path.equals(SESSIONS_PATH)) {
+            sessions.put(entry.getCreatedId(), created);
+        } else {
+            resources.put(resourceKey(sessionOf(entry), path, entry.getCreatedId()), created);
+        }
+        return created;
+    }
+
+    /**
+     * Sends a captured request, after substituting the IDs created during the replay, and records its latency.
+     */
+    private void send(TrafficLog.Entry entry, long intended, CompletableFuture<String> created) {
+        Endpoint endpoint = endpoints.computeIfAbsent(endpointOf(entry), key -> new Endpoint());
+        endpoint.captured.recordValue(entry.getLatencyMicros());
+        try {
+            String capturedSession = sessionOf(entry);
+            String session = capturedSession == null ? null : resolve(sessions.get(capturedSession), capturedSession);
+            String path = resolvePath(capturedSession, entry.getPath());
+
+            RequestSpecification request = given().urlEncodingEnabled(false);
+            for (String[] header : entry.getHeaders()) {
+                if (header[0].equalsIgnoreCase(SESSION_HEADER)) {
+                    request.header(header[0], session);
+                } else if (!header[0].equalsIgnoreCase("Content-Length") && !header[0].equalsIgnoreCase("Host")) {
+                    request.header(header[0], header[1]);
+                }
+            }
+            byte[] body = resolveBody(capturedSession, entry.getBody());
+            if (body.length > 0) {
+                request.body(new String(body, StandardCharsets.UTF_8));
+            }
+
+            long start = System.nanoTime();
+            lag.recordValue(TimeUnit.NANOSECONDS.toMicros(Math.max(0, start - intended)));
+            Response response = request.request(entry.getMethod(), path);
+            endpoint.replayed.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+            if (response.getStatusCode() != entry.getStatus()) {
+                endpoint.mismatches.increment();
+            }
+            if (created != null) {
+                Object id = response.getStatusCode() == 201 ? response.getBody().jsonPath().get("id") : null;
+                if (id == null) {
+                    created.completeExceptionally(new IllegalStateException(
+                            String.format("%s %s did not create anything", entry.getMethod(), path)));
+                } else {
+                    created.complete(id.toString());
+                }
+            }
+        } catch (RuntimeException e) {
+            endpoint.errors.increment();
+            if (created != null) {
+                created.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Replaces a captured resource ID at the end of a path by the ID created during the replay.
+     */
+    private String resolvePath(String capturedSession, String path) {
+        String withoutQuery = stripQuery(path);
+        int slash = withoutQuery.lastIndexOf('/');
+        if (slash < 0) {
+            return path;
+        }
+        String id = withoutQuery.substring(slash + 1);
+        CompletableFuture<String> created = resources.get(
+                resourceKey(capturedSession, withoutQuery.substring(0, slash), id));
+        if (created == null) {
+            return path;
+        }
+        return withoutQuery.substring(0, slash + 1) + resolve(created, id) + path.substring(withoutQuery.length());
+    }
+
+    /**
+     * Replaces the captured IDs of categories in a JSON request body by the IDs created during the replay. Bodies
+     * which are not JSON objects, or which do not refer to a category created during the capture, are returned as is.
+     */
+    private byte[] resolveBody(String capturedSession, byte[] body) {
+        if (body.length == 0) {
+            return body;
+        }
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(body);
+        } catch (IOException e) {
+            return body;
+        }
+        if (node == null || !node.isObject()) {
+            return body;
+        }
+
+        boolean resolved = resolveCategory(capturedSession, (ObjectNode) node, "category_id");
+        JsonNode category = node.get("category");
+        if (category != null && category.isObject()) {
+            resolved |= resolveCategory(capturedSession, (ObjectNode) category, "id");
+        }
+        if (!resolved) {
+            return body;
+        }
+        try {
+            return MAPPER.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write request body", e);
+        }
+    }
+
+    /**
+     * Replaces the captured ID of a category in a field of an object by the ID created during the replay.
+     *
+     * @return whether the field was replaced
+     */
+    private boolean resolveCategory(String capturedSession, ObjectNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isValueNode() || value.isNull()) {
+            return false;
+        }
+        String id = value.asText();
+        CompletableFuture<String> created = resources.get(resourceKey(capturedSession, CATEGORIES_PATH, id));
+        if (created == null) {
+            return false;
+        }
+        String resolved = resolve(created, id);
+        if (value.isNumber()) {
+            node.put(field, Long.parseLong(resolved));
+        } else {
+            node.put(field, resolved);
+        }
+        return true;
+    }
+
+    /**
+     * Waits for a created ID, or returns the captured ID if it was not created during the capture.
+     */
+    private static String resolve(CompletableFuture<String> created, String capturedId) {
+        return created == null ? capturedId : created.join();
+    }
+
+    /**
+     * Prints the captured and replayed percentiles of every endpoint.
+     *
+     * @param out the stream to print to
+     */
+    public void printSummary(PrintStream out) {
+        out.printf(Locale.ROOT, "%-40s %8s %8s %8s %12s %12s %12s %12s %8s%n", "endpoint", "count", "errors",
+                "status", "p50 capt.", "p50 replay", "p99 capt.", "p99 replay", "p99 x");
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            out.printf(Locale.ROOT, "%-40s %8d %8d %8d %12.3f %12.3f %12.3f %12.3f %8.2f%n", entry.getKey(),
+                    endpoint.captured.getTotalCount(), endpoint.errors.sum(), endpoint.mismatches.sum(),
+                    millis(endpoint.captured, 50.0), millis(endpoint.replayed, 50.0),
+                    millis(endpoint.captured, 99.0), millis(endpoint.replayed, 99.0), endpoint.divergence());
+        }
+        out.printf(Locale.ROOT, "Requests were sent up to %.3f ms late (p99 %.3f ms) at %.1fx speed%n",
+                lag.getMaxValue() / 1000.0, millis(lag, 99.0), speed);
+    }
+
+    /**
+     * Writes the report to a directory, as {@code summary.txt} and {@code summary.csv}.
+     *
+     * @param directory the directory to write the report to, which is created if it does not exist
+     * @throws IOException if the report could not be written
+     */
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintStream out = open(directory.resolve("summary.txt"))) {
+            printSummary(out);
+        }
+        try (PrintStream out = open(directory.resolve("summary.csv"))) {
+            out.println("endpoint,count,errors,status_mismatches,captured_p50_ms,replayed_p50_ms,captured_p99_ms,"
+                    + "replayed_p99_ms,captured_max_ms,replayed_max_ms,p99_ratio");
+            for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+                Endpoint endpoint = entry.getValue();
+                out.printf(Locale.ROOT, "%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n", entry.getKey(),
+                        endpoint.captured.getTotalCount(), endpoint.errors.sum(), endpoint.mismatches.sum(),
+                        millis(endpoint.captured, 50.0), millis(endpoint.replayed, 50.0),
+                        millis(endpoint.captured, 99.0), millis(endpoint.replayed, 99.0),
+                        endpoint.captured.getMaxValue() / 1000.0, endpoint.replayed.getMaxValue() / 1000.0,
+                        endpoint.divergence());
+            }
+        }
+    }
+
+    private static String sessionOf(TrafficLog.Entry entry) {
+        for (String[] header : entry.getHeaders()) {
+            if (header[0].equalsIgnoreCase(SESSION_HEADER)) {
+                return header[1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the method and path of the endpoint of a request, with numeric IDs replaced by {@code {id}}.
+     */
+    private static String endpointOf(TrafficLog.Entry entry) {
+        return entry.getMethod() + " " + stripQuery(entry.getPath()).replaceAll("/-?\\d+(?=/|$)", "/{id}");
+    }
+
+    private static String resourceKey(String session, String path, String id) {
+        return session + ' ' + path + '/' + id;
+    }
+
+    private static String stripQuery(String path) {
+        int query = path.indexOf('?');
+        return query < 0 ? path : path.substring(0, query);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static PrintStream open(Path file) throws IOException {
+        return new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8.name());
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * The captured and replayed latencies of a single endpoint, in microseconds.
+     */
+    private static class Endpoint {
+
+        private final Histogram captured = new ConcurrentHistogram(3);
+        private final Histogram replayed = new ConcurrentHistogram(3);
+        private final LongAdder mismatches = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        /**
+         * Returns the ratio between the replayed and captured p99 latencies.
+         */
+        private double divergence() {
+            double captured = this.captured.getValueAtPercentile(99.0);
+            return captured > 0 ? replayed.getValueAtPercentile(99.0) / captured : Double.NaN;
+        }
+    }
+}
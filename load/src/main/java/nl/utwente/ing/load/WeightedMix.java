@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * A weighted mix of values, such as operations or journeys, from which the load generator draws what to send next.
+ *
+ * @param <T> the type of the values in the mix
+ */
+public final class WeightedMix<T> {
+
+    private final List<T> values;
+    // The running sum of the weights, values[i] is drawn for values below cumulativeWeights[i].
+    private final int[] cumulativeWeights;
+
+    private WeightedMix(List<T> values, int[] cumulativeWeights) {
+        this.values = values;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    /**
+     * Parses a mix in the format {@code NAME=weight,NAME=weight}, e.g. {@code GET_TRANSACTIONS=8,CREATE_TRANSACTION=2}.
+     * The weights are relative to each other.
+     *
+     * @param mix the mix to parse
+     * @param lookup returns the value with the given name
+     * @param <T> the type of the values in the mix
+     * @return the parsed mix
+     * @throws IllegalArgumentException if the mix is malformed or does not contain any positive weight
+     */
+    public static <T> WeightedMix<T> parse(String mix, Function<String, T> lookup) {
+        List<T> values = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(String.format("Invalid weight: %s", entry));
+            }
+
+            int weight;
+            try {
+                weight = Integer.parseInt(parts[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Invalid weight: %s", entry), e);
+            }
+            if (weight < 0) {
+                throw new IllegalArgumentException(String.format("Negative weight: %s", entry));
+            }
+            if (weight > 0) {
+                values.add(lookup.apply(parts[0].trim()));
+                weights.add(weight);
+            }
+        }
+
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Mix without any positive weight: %s", mix));
+        }
+
+        int[] cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            total += weights.get(i);
+            cumulativeWeights[i] = total;
+        }
+        return new WeightedMix<>(Collections.unmodifiableList(values), cumulativeWeights);
+    }
+
+    /**
+     * Returns the values in the mix, in the order in which they were given.
+     *
+     * @return the values with a positive weight
+     */
+    public List<T> getValues() {
+        return values;
+    }
+
+    /**
+     * Draws a value, with a probability proportional to its weight.
+     *
+     * @param random the source of randomness
+     * @return the drawn value
+     */
+    public T next(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return values.get(i);
+            }
+        }
+        throw new AssertionError("Drawn value exceeds the total weight");
+    }
+}
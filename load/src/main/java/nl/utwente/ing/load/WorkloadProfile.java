@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * A named workload for the load generator: the journeys users make, how often they make them, how long they think
+ * between the steps of a journey, and how many sessions they are spread over.
+ * <p>
+ * Profiles are defined in {@code profiles.properties}, or in the file given by the {@code load.profiles} system
+ * property. A journey is defined as {@code journey.<NAME>=OPERATION,OPERATION}, and a profile as follows:
+ * <ul>
+ *     <li>{@code profile.<name>.description}: what the profile simulates</li>
+ *     <li>{@code profile.<name>.journeys}: the weighted journeys, see {@link WeightedMix#parse}</li>
+ *     <li>{@code profile.<name>.rate}: the number of journeys started per second (default 10)</li>
+ *     <li>{@code profile.<name>.thinkTime}: the mean think time between steps in milliseconds (default 0)</li>
+ *     <li>{@code profile.<name>.sessions}: the number of sessions between which journeys are spread (default 10)</li>
+ * </ul>
+ */
+public final class WorkloadProfile {
+
+    private static final String DEFAULT_FILE = "profiles.properties";
+
+    private final String name;
+    private final String description;
+    private final WeightedMix<Journey> journeys;
+    private final double rate;
+    private final long thinkTimeMillis;
+    private final int sessions;
+
+    private WorkloadProfile(String name, String description, WeightedMix<Journey> journeys, double rate,
+                            long thinkTimeMillis, int sessions) {
+        this.name = name;
+        this.description = description;
+        this.journeys = journeys;
+        this.rate = rate;
+        this.thinkTimeMillis = thinkTimeMillis;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Returns a profile in which every journey is a single operation, sent without think time.
+     *
+     * @param mix the weighted operations, see {@link WeightedMix#parse}
+     * @param rate the number of operations sent per second
+     * @param sessions the number of sessions between which operations are spread
+     * @return the profile
+     */
+    public static WorkloadProfile ofOperations(String mix, double rate, int sessions) {
+        return new WorkloadProfile("operations", mix,
+                WeightedMix.parse(mix, operation -> Journey.of(Operation.valueOf(operation))), rate, 0, sessions);
+    }
+
+    /**
+     * Loads a profile by name from the profiles file.
+     *
+     * @param name the name of the profile
+     * @return the profile
+     * @throws IOException if the profiles file could not be read
+     * @throws IllegalArgumentException if there is no such profile, or it is malformed
+     */
+    public static WorkloadProfile load(String name) throws IOException {
+        Properties properties = new Properties();
+        String file = System.getProperty("load.profiles");
+        try (InputStream in = file == null
+                ? WorkloadProfile.class.getClassLoader().getResourceAsStream(DEFAULT_FILE)
+                : Files.newInputStream(Paths.get(file))) {
+            if (in == null) {
+                throw new IOException(String.format("%s not found on the class path", DEFAULT_FILE));
+            }
+            properties.load(in);
+        }
+        return parse(properties, name);
+    }
+
+    /**
+     * Parses a profile from the given definitions of profiles and journeys.
+     *
+     * @param properties the definitions
+     * @param name the name of the profile
+     * @return the profile
+     * @throws IllegalArgumentException if there is no such profile, or it is malformed
+     */
+    public static WorkloadProfile parse(Properties properties, String name) {
+        String prefix = "profile." + name + ".";
+        String journeys = properties.getProperty(prefix + "journeys");
+        if (journeys == null) {
+            throw new IllegalArgumentException(String.format("Unknown workload profile: %s", name));
+        }
+
+        return new WorkloadProfile(name,
+                properties.getProperty(prefix + "description", name),
+                WeightedMix.parse(journeys, journey -> {
+                    String steps = properties.getProperty("journey." + journey);
+                    if (steps == null) {
+                        throw new IllegalArgumentException(String.format("Unknown journey: %s", journey));
+                    }
+                    return Journey.parse(journey, steps);
+                }),
+                Double.parseDouble(properties.getProperty(prefix + "rate", "10")),
+                Long.parseLong(properties.getProperty(prefix + "thinkTime", "0")),
+                Integer.parseInt(properties.getProperty(prefix + "sessions", "10")));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public WeightedMix<Journey> getJourneys() {
+        return journeys;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public long getThinkTimeMillis() {
+        return thinkTimeMillis;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import nl.utwente.ing.RequestBodies;
+import nl.utwente.ing.TestClock;
+import nl.utwente.ing.Timestamps;
+import nl.utwente.ing.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Measures the cost of creating a category rule with {@code applyOnHistory} set, which assigns its category to all
+ * existing transactions matching the rule.
+ * <p>
+ * For every history size a new session is seeded with transactions, of which a share matches the rule of the
+ * {@code applyOnHistoryCategoryRuleTest}. First a rule which does not apply on the history is created, as a baseline
+ * for the latency of creating a rule. Then the matching rule is created, after which every matching transaction is
+ * requested until it shows the category of the rule. When all of them do on their first request, the server has
+ * completed the backfill before answering the request creating the rule. The scenario is configured using the
+ * following system properties:
+ * <ul>
+ *     <li>{@code scenario.sizes}: the numbers of transactions (default 1000,10000,100000)</li>
+ *     <li>{@code scenario.matching}: the percentage of transactions matching the rule (default 10)</li>
+ *     <li>{@code scenario.pollInterval}: the number of milliseconds between requests for a transaction which does not
+ *     show the category yet (default 10)</li>
+ *     <li>{@code scenario.timeout}: the number of seconds to wait for the backfill to complete (default 600)</li>
+ * </ul>
+ * The transactions are checked using {@code seed.inFlight} concurrent requests. As checking takes time itself, the
+ * duration of a second check of all matching transactions, after the backfill has completed, is reported as well.
+ * The results are written to {@code apply-on-history.csv}.
+ */
+public class ApplyOnHistoryScenario implements Scenario {
+
+    private static final String DESCRIPTION = "University of Twente";
+    private static final String TYPE = "deposit";
+
+    private final int[] sizes = Scenarios.getInts("scenario.sizes", "1000,10000,100000");
+    private final int matchingPercentage = Integer.getInteger("scenario.matching", 10);
+    private final long pollIntervalMillis = Long.getLong("scenario.pollInterval", 10);
+    private final long timeoutSeconds = Long.getLong("scenario.timeout", 600);
+    private final int inFlight = Integer.getInteger("seed.inFlight", 32);
+
+    public static void main(String[] args) throws Exception {
+        Scenarios.launch(new ApplyOnHistoryScenario());
+    }
+
+    @Override
+    public String getName() {
+        return "apply-on-history";
+    }
+
+    @Override
+    public void run(ScenarioReport report) throws Exception {
+        ScenarioReport.Table table = report.table("apply-on-history", "transactions", "matching",
+                "baseline_post_ms", "post_ms", "consistent_ms", "check_ms", "pending_after_post", "blocking");
+        ExecutorService executor = Executors.newFixedThreadPool(inFlight, runnable -> {
+            Thread thread = new Thread(runnable, "apply-on-history");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            for (int size : sizes) {
+                String sessionId = Util.getSessionID();
+                int categoryId = Util.createTestCategory("Backfill", sessionId);
+                String date = Timestamps.format(TestClock.now().minusYears(1));
+                List<Integer> ids = Datasets.createTransactions(sessionId, size,
+                        i -> RequestBodies.transaction(date, 100, Datasets.IBAN, TYPE,
+                                matches(i) ? DESCRIPTION : "Other transaction " + i));
+                List<Integer> matchingIds = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    if (matches(i)) {
+                        matchingIds.add(ids.get(i));
+                    }
+                }
+
+                long baselineMicros = Latencies.time(() -> createRule(sessionId,
+                        RequestBodies.categoryRule("Baseline rule", Datasets.IBAN, TYPE, categoryId, false)));
+
+                long start = System.nanoTime();
+                long postMicros = Latencies.time(() -> createRule(sessionId,
+                        RequestBodies.categoryRule(DESCRIPTION, Datasets.IBAN, TYPE, categoryId, true)));
+                int pending = awaitCategory(executor, sessionId, matchingIds, categoryId);
+                long consistentMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+                long checkStart = System.nanoTime();
+                if (awaitCategory(executor, sessionId, matchingIds, categoryId) > 0) {
+                    throw new IllegalStateException("Transactions lost their category after the backfill");
+                }
+                long checkMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - checkStart);
+
+                boolean blocking = pending == 0;
+                table.row(size, matchingIds.size(), baselineMicros / 1000.0, postMicros / 1000.0,
+                        consistentMicros / 1000.0, checkMicros / 1000.0, pending, blocking);
+                report.summary("%7d transactions (%d matching): rule created in %.3f ms (baseline %.3f ms), all "
+                                + "matching transactions categorized after %.3f ms (checking takes %.3f ms), %s",
+                        size, matchingIds.size(), postMicros / 1000.0, baselineMicros / 1000.0,
+                        consistentMicros / 1000.0, checkMicros / 1000.0, blocking
+                                ? "the request blocks for the whole backfill"
+                                : pending + " transactions were backfilled after the response");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean matches(int index) {
+        return index % 100 < matchingPercentage;
+    }
+
+    /**
+     * Requests every transaction until it shows the category.
+     *
+     * @return the number of transactions which did not show the category on their first request
+     */
+    private int awaitCategory(ExecutorService executor, String sessionId, List<Integer> ids, int categoryId)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        AtomicInteger pending = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int id : ids) {
+            futures.add(executor.submit(() -> {
+                if (hasCategory(sessionId, id, categoryId)) {
+                    return null;
+                }
+                pending.incrementAndGet();
+                do {
+                    if (System.nanoTime() > deadline) {
+                        throw new TimeoutException(String.format("Transaction %d was not categorized in time", id));
+                    }
+                    Thread.sleep(pollIntervalMillis);
+                } while (!hasCategory(sessionId, id, categoryId));
+                return null;
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return pending.get();
+    }
+
+    private static boolean hasCategory(String sessionId, int transactionId, int categoryId) {
+        Integer id = given()
+                .header("X-session-ID", sessionId)
+                .get(String.format("api/v1/transactions/%d", transactionId))
+                .then()
+                .assertThat()
+                .statusCode(200)
+                .extract()
+                .response()
+                .getBody()
+                .jsonPath()
+                .get("category.id");
+        return id != null && id == categoryId;
+    }
+
+    private static void createRule(String sessionId, String body) {
+        given()
+                .header("X-session-ID", sessionId)
+                .body(body)
+                .post("api/v1/categoryRules")
+                .then()
+                .assertThat()
+                .statusCode(201);
+    }
+}
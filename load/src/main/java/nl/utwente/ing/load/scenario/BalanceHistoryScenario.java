@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import nl.utwente.ing.RequestBodies;
+import nl.utwente.ing.TestClock;
+import nl.utwente.ing.Util;
+import org.HdrHistogram.Histogram;
+
+import java.util.Arrays;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Measures how the latency of the balance history depends on the number of transactions of a session, the number
+ * of requested intervals and the interval granularity.
+ * <p>
+ * A single session is seeded with transactions spread evenly over a number of years, shaped like the ones created by
+ * the balance history tests, and grown to every size in turn. At every size, every combination of granularity and
+ * number of intervals is requested a number of times. The scenario is configured using the following system
+ * properties:
+ * <ul>
+ *     <li>{@code scenario.sizes}: the numbers of transactions (default 1000,10000,100000,1000000)</li>
+ *     <li>{@code scenario.intervals}: the numbers of intervals (default 1,2,5,10,20,50,100,200,500,1000)</li>
+ *     <li>{@code scenario.granularities}: the interval granularities (default hour,day,week,month,year)</li>
+ *     <li>{@code scenario.years}: the number of years over which the transactions are spread (default 10)</li>
+ *     <li>{@code scenario.samples}: the number of requests per combination (default 20)</li>
+ * </ul>
+ * The latencies are written to {@code balance-history.csv}. The summary estimates how the latency grows with the
+ * number of transactions and intervals, where an exponent of 1 means that the latency grows linearly.
+ */
+public class BalanceHistoryScenario implements Scenario {
+
+    private final int[] sizes = Scenarios.getInts("scenario.sizes", "1000,10000,100000,1000000");
+    private final int[] intervals = Scenarios.getInts("scenario.intervals", "1,2,5,10,20,50,100,200,500,1000");
+    private final String[] granularities = System.getProperty("scenario.granularities", "hour,day,week,month,year")
+            .split(",");
+    private final int years = Integer.getInteger("scenario.years", 10);
+    private final int samples = Integer.getInteger("scenario.samples", 20);
+
+    public static void main(String[] args) throws Exception {
+        Scenarios.launch(new BalanceHistoryScenario());
+    }
+
+    @Override
+    public String getName() {
+        return "balance-history";
+    }
+
+    @Override
+    public void run(ScenarioReport report) throws Exception {
+        ScenarioReport.Table table = report.table("balance-history", "transactions", "interval", "intervals",
+                "samples", "mean_ms", "p50_ms", "p99_ms", "max_ms");
+        Arrays.sort(sizes);
+        // The median latencies, indexed by size, granularity and number of intervals.
+        double[][][] medians = new double[sizes.length][granularities.length][intervals.length];
+
+        String sessionId = Util.getSessionID();
+        long toMillis = TestClock.now().toInstant().toEpochMilli();
+        long fromMillis = toMillis - years * Datasets.MILLIS_PER_YEAR;
+        int seeded = 0;
+        for (int s = 0; s < sizes.length; s++) {
+            // Every batch is spread over the whole period, so together they are spread evenly as well.
+            int first = seeded;
+            int batch = sizes[s] - seeded;
+            Datasets.createTransactions(sessionId, batch, i -> transaction(first + i,
+                    Datasets.spreadDate(i, batch, fromMillis, toMillis)));
+            seeded = sizes[s];
+
+            for (int g = 0; g < granularities.length; g++) {
+                for (int n = 0; n < intervals.length; n++) {
+                    String path = String.format("api/v1/balance/history?interval=%s&intervals=%d",
+                            granularities[g].trim(), intervals[n]);
+                    // The first request is not measured, as it may have to load the session into memory.
+                    getBalanceHistory(sessionId, path);
+                    Histogram histogram = Latencies.sample(samples, () -> getBalanceHistory(sessionId, path));
+                    medians[s][g][n] = ScenarioReport.millis(histogram, 50.0);
+                    table.row(sizes[s], granularities[g].trim(), intervals[n], samples,
+                            histogram.getMean() / 1000.0, medians[s][g][n], ScenarioReport.millis(histogram, 99.0),
+                            histogram.getMaxValue() / 1000.0);
+                }
+            }
+            report.summary("Measured %d transactions", sizes[s]);
+        }
+
+        summarize(report, medians);
+    }
+
+    /**
+     * Summarizes the growth of the median latency, between the smallest and largest number of transactions at the
+     * largest number of intervals, and between the smallest and largest number of intervals at the largest number
+     * of transactions.
+     */
+    private void summarize(ScenarioReport report, double[][][] medians) {
+        int largestSize = sizes.length - 1;
+        int mostIntervals = intervals.length - 1;
+        for (int g = 0; g < granularities.length; g++) {
+            report.summary("interval=%s: p50 %.3f ms at %d transactions and %.3f ms at %d transactions "
+                            + "(%d intervals, exponent %.2f); %.3f ms at %d intervals and %.3f ms at %d intervals "
+                            + "(%d transactions, exponent %.2f)",
+                    granularities[g].trim(),
+                    medians[0][g][mostIntervals], sizes[0], medians[largestSize][g][mostIntervals],
+                    sizes[largestSize], intervals[mostIntervals],
+                    Latencies.exponent(medians[0][g][mostIntervals], medians[largestSize][g][mostIntervals],
+                            sizes[0], sizes[largestSize]),
+                    medians[largestSize][g][0], intervals[0], medians[largestSize][g][mostIntervals],
+                    intervals[mostIntervals], sizes[largestSize],
+                    Latencies.exponent(medians[largestSize][g][0], medians[largestSize][g][mostIntervals],
+                            intervals[0], intervals[mostIntervals]));
+        }
+    }
+
+    /**
+     * Builds the body of a transaction, shaped like the ones created by the balance history tests. Three out of five
+     * transactions are deposits, so the balance grows over time.
+     */
+    private static String transaction(int index, String date) {
+        return RequestBodies.transaction(date, 1 + (int) (index * 7919L % 500), Datasets.IBAN,
+                index % 5 < 3 ? "deposit" : "withdrawal", "University of Twente");
+    }
+
+    private static void getBalanceHistory(String sessionId, String path) {
+        given()
+                .header("X-session-ID", sessionId)
+                .get(path)
+                .then()
+                .assertThat()
+                .statusCode(200);
+    }
+}
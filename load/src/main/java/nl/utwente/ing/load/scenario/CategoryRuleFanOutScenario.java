@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import nl.utwente.ing.RequestBodies;
+import nl.utwente.ing.TestClock;
+import nl.utwente.ing.Timestamps;
+import nl.utwente.ing.Util;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Measures how the latency and throughput of creating transactions depend on the number of category rules of a
+ * session, which have to be evaluated for every new transaction.
+ * <p>
+ * For every rule count a new session is created with that number of rules. Most rules match an exact description,
+ * IBAN and type which none of the created transactions have. Every so often a rule consisting of blank wildcards is
+ * added instead, like the blank rule of the category rule tests, which matches every transaction. The scenario is
+ * configured using the following system properties:
+ * <ul>
+ *     <li>{@code scenario.rules}: the numbers of rules (default 0,10,100,1000,10000)</li>
+ *     <li>{@code scenario.wildcardEvery}: every how many rules a blank rule is created (default 10)</li>
+ *     <li>{@code scenario.samples}: the number of transactions created one after another to measure the latency
+ *     (default 200)</li>
+ *     <li>{@code scenario.transactions}: the number of transactions created concurrently to measure the throughput,
+ *     using {@code seed.inFlight} concurrent requests (default 2000)</li>
+ * </ul>
+ * The results are written to {@code category-rules.csv}.
+ */
+public class CategoryRuleFanOutScenario implements Scenario {
+
+    private final int[] ruleCounts = Scenarios.getInts("scenario.rules", "0,10,100,1000,10000");
+    private final int wildcardEvery = Integer.getInteger("scenario.wildcardEvery", 10);
+    private final int samples = Integer.getInteger("scenario.samples", 200);
+    private final int transactions = Integer.getInteger("scenario.transactions", 2000);
+
+    public static void main(String[] args) throws Exception {
+        Scenarios.launch(new CategoryRuleFanOutScenario());
+    }
+
+    @Override
+    public String getName() {
+        return "category-rules";
+    }
+
+    @Override
+    public void run(ScenarioReport report) throws Exception {
+        ScenarioReport.Table table = report.table("category-rules", "rules", "samples", "mean_ms", "p50_ms",
+                "p99_ms", "max_ms", "transactions", "throughput");
+        String date = Timestamps.format(TestClock.now());
+        String body = RequestBodies.transaction(date, 100, Datasets.IBAN, "deposit", "University of Twente");
+        double[] medians = new double[ruleCounts.length];
+
+        for (int r = 0; r < ruleCounts.length; r++) {
+            int rules = ruleCounts[r];
+            String sessionId = Util.getSessionID();
+            int categoryId = Util.createTestCategory("Fan-out", sessionId);
+            Datasets.createCategoryRules(sessionId, rules, i -> rule(i, categoryId));
+
+            // The first transaction is not measured, as it may have to load the rules into memory.
+            createTransaction(sessionId, body);
+            Histogram histogram = Latencies.sample(samples, () -> createTransaction(sessionId, body));
+
+            long start = System.nanoTime();
+            Datasets.createTransactions(sessionId, transactions, i -> body);
+            double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+            double throughput = transactions / seconds;
+            medians[r] = ScenarioReport.millis(histogram, 50.0);
+
+            table.row(rules, samples, histogram.getMean() / 1000.0, medians[r],
+                    ScenarioReport.millis(histogram, 99.0), histogram.getMaxValue() / 1000.0, transactions,
+                    throughput);
+            report.summary("%6d rules: p50 %.3f ms, p99 %.3f ms, %.1f transactions/s", rules,
+                    medians[r], ScenarioReport.millis(histogram, 99.0), throughput);
+        }
+
+        // The latency without rules is the cost of ingestion itself, so growth is measured from the first count
+        // with rules onwards.
+        int first = ruleCounts[0] == 0 && ruleCounts.length > 2 ? 1 : 0;
+        int last = ruleCounts.length - 1;
+        report.summary("p50 grows with exponent %.2f between %d and %d rules (1.0 means a linear scan)",
+                Latencies.exponent(medians[first], medians[last], ruleCounts[first], ruleCounts[last]),
+                ruleCounts[first], ruleCounts[last]);
+    }
+
+    /**
+     * Builds the body of the rule with the given index. Every {@code wildcardEvery}-th rule consists of blank
+     * wildcards, the other rules match a unique description.
+     */
+    private String rule(int index, int categoryId) {
+        if (wildcardEvery > 0 && index % wildcardEvery == wildcardEvery - 1) {
+            return RequestBodies.categoryRule("", "", "", categoryId, false);
+        }
+        return RequestBodies.categoryRule("Rule " + index, "NL01RULE" + index, index % 2 == 0 ? "deposit"
+                : "withdrawal", categoryId, false);
+    }
+
+    private static void createTransaction(String sessionId, String body) {
+        given()
+                .header("X-session-ID", sessionId)
+                .body(body)
+                .post("api/v1/transactions")
+                .then()
+                .assertThat()
+                .statusCode(201);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import nl.utwente.ing.Timestamps;
+import nl.utwente.ing.Util;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Seeds sessions with generated test data, using the bulk creation of {@link Util}.
+ */
+final class Datasets {
+
+    static final String IBAN = "NL39RABO0300065264";
+    static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+    static final long MILLIS_PER_YEAR = 365 * MILLIS_PER_DAY;
+
+    private Datasets() {
+    }
+
+    /**
+     * Creates transactions in a session. The bodies are generated while the transactions are created, so large
+     * datasets do not have to be kept in memory.
+     *
+     * @param sessionId the session for which to create the transactions
+     * @param count the number of transactions to create
+     * @param bodies generates the request body of the transaction with the given index, counting from 0
+     * @return the IDs of the created transactions, in the order of their indices
+     */
+    static List<Integer> createTransactions(String sessionId, int count, IntFunction<String> bodies) {
+        return create(Util.Resource.TRANSACTIONS, sessionId, count, bodies);
+    }
+
+    /**
+     * Creates category rules in a session.
+     *
+     * @param sessionId the session for which to create the rules
+     * @param count the number of rules to create
+     * @param bodies generates the request body of the rule with the given index, counting from 0
+     * @return the IDs of the created rules, in the order of their indices
+     */
+    static List<Integer> createCategoryRules(String sessionId, int count, IntFunction<String> bodies) {
+        return create(Util.Resource.CATEGORY_RULES, sessionId, count, bodies);
+    }
+
+    /**
+     * Creates resources of any type in a session.
+     *
+     * @param resource the type of the resources to create
+     * @param sessionId the session for which to create the resources
+     * @param count the number of resources to create
+     * @param bodies generates the request body of the resource with the given index, counting from 0
+     * @return the IDs of the created resources, in the order of their indices
+     */
+    static List<Integer> create(Util.Resource resource, String sessionId, int count, IntFunction<String> bodies) {
+        return Util.createInBulk(resource, () -> generate(count, bodies), sessionId);
+    }
+
+    /**
+     * Returns the date of the transaction with the given index, when transactions are spread evenly over a period.
+     *
+     * @param index the index of the transaction
+     * @param count the total number of transactions
+     * @param fromMillis the start of the period, in milliseconds since the epoch
+     * @param toMillis the end of the period, in milliseconds since the epoch
+     * @return the date of the transaction
+     */
+    static String spreadDate(int index, int count, long fromMillis, long toMillis) {
+        return Timestamps.format(fromMillis + (long) ((toMillis - fromMillis) * ((double) index / count)));
+    }
+
+    private static Iterator<String> generate(int count, IntFunction<String> bodies) {
+        return new Iterator<String>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < count;
+            }
+
+            @Override
+            public String next() {
+                if (index >= count) {
+                    throw new NoSuchElementException();
+                }
+                return bodies.apply(index++);
+            }
+        };
+    }
+}
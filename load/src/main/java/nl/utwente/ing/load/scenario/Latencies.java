@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of requests which are sent one after another.
+ */
+final class Latencies {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private Latencies() {
+    }
+
+    /**
+     * Creates an empty histogram for latencies in microseconds.
+     *
+     * @return the histogram
+     */
+    static Histogram histogram() {
+        return new Histogram(SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Sends a request a number of times and records the latencies.
+     *
+     * @param samples the number of times to send the request
+     * @param request sends the request and checks its response
+     * @return the latencies in microseconds
+     */
+    static Histogram sample(int samples, Runnable request) {
+        Histogram histogram = histogram();
+        for (int i = 0; i < samples; i++) {
+            histogram.recordValue(time(request));
+        }
+        return histogram;
+    }
+
+    /**
+     * Sends a request once and returns its latency.
+     *
+     * @param request sends the request and checks its response
+     * @return the latency in microseconds
+     */
+    static long time(Runnable request) {
+        long start = System.nanoTime();
+        request.run();
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+
+    /**
+     * Estimates the exponent k for which the latency grows like x^k, from the latencies at two values of x.
+     */
+    static double exponent(double latency, double otherLatency, double x, double otherX) {
+        if (latency <= 0 || otherLatency <= 0 || x == otherX) {
+            return Double.NaN;
+        }
+        return Math.log(otherLatency / latency) / Math.log(otherX / x);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import io.restassured.specification.RequestSpecification;
+import nl.utwente.ing.RequestBodies;
+import nl.utwente.ing.TestClock;
+import nl.utwente.ing.Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Measures the latency of listing transactions page by page, through all transactions of a large session.
+ * <p>
+ * A session is seeded with transactions spread over ten years, each assigned to a category. Most transactions are
+ * spread evenly over the regular categories, while one in a hundred belongs to a rare category, for which a filtered
+ * listing has to skip over many other transactions. The session is then walked using the {@code offset} and
+ * {@code limit} parameters, once without and once with each {@code category} filter, as an export of the full history
+ * would. The scenario is configured using the following system properties:
+ * <ul>
+ *     <li>{@code scenario.transactions}: the number of transactions (default 1000000)</li>
+ *     <li>{@code scenario.categories}: the regular categories (default work,groceries,rent,leisure)</li>
+ *     <li>{@code scenario.limit}: the number of transactions per page (default 100)</li>
+ *     <li>{@code scenario.pageStep}: requests every n-th page only, to shorten a walk (default 1)</li>
+ * </ul>
+ * The latency of every page is written to {@code pages.csv}. The summary compares the latencies of the first and last
+ * pages of every walk, where an exponent of 1 means that the latency grows linearly with the offset.
+ */
+public class PaginationScenario implements Scenario {
+
+    private static final String RARE_CATEGORY = "rare";
+
+    private final int transactions = Integer.getInteger("scenario.transactions", 1_000_000);
+    private final String[] categories = System.getProperty("scenario.categories", "work,groceries,rent,leisure")
+            .split(",");
+    private final int limit = Integer.getInteger("scenario.limit", 100);
+    private final int pageStep = Math.max(1, Integer.getInteger("scenario.pageStep", 1));
+
+    public static void main(String[] args) throws Exception {
+        Scenarios.launch(new PaginationScenario());
+    }
+
+    @Override
+    public String getName() {
+        return "pagination";
+    }
+
+    @Override
+    public void run(ScenarioReport report) throws Exception {
+        ScenarioReport.Table table = report.table("pages", "category", "page", "offset", "returned",
+                "latency_ms");
+
+        String sessionId = Util.getSessionID();
+        int[] categoryIds = new int[categories.length];
+        for (int c = 0; c < categories.length; c++) {
+            categories[c] = categories[c].trim();
+            categoryIds[c] = Util.createTestCategory(categories[c], sessionId);
+        }
+        int rareCategoryId = Util.createTestCategory(RARE_CATEGORY, sessionId);
+
+        long toMillis = TestClock.now().toInstant().toEpochMilli();
+        long fromMillis = toMillis - 10 * Datasets.MILLIS_PER_YEAR;
+        int[] expected = new int[categories.length + 1];
+        for (int i = 0; i < transactions; i++) {
+            expected[categoryIndex(i)]++;
+        }
+        Datasets.createTransactions(sessionId, transactions, i -> {
+            int category = categoryIndex(i);
+            boolean rare = category == categories.length;
+            return RequestBodies.transaction(Datasets.spreadDate(i, transactions, fromMillis, toMillis),
+                    1 + i % 250, Datasets.IBAN, i % 2 == 0 ? "deposit" : "withdrawal", "Transaction " + i,
+                    rare ? rareCategoryId : categoryIds[category], rare ? RARE_CATEGORY : categories[category]);
+        });
+
+        walk(report, table, sessionId, null, transactions);
+        for (int c = 0; c < categories.length; c++) {
+            walk(report, table, sessionId, categories[c], expected[c]);
+        }
+        walk(report, table, sessionId, RARE_CATEGORY, expected[categories.length]);
+    }
+
+    /**
+     * Returns the index of the category of a transaction, where the index of the rare category is the number of
+     * regular categories.
+     */
+    private int categoryIndex(int transaction) {
+        if (transaction % 100 == 99) {
+            return categories.length;
+        }
+        return transaction % categories.length;
+    }
+
+    /**
+     * Requests the pages of a listing until the expected number of transactions has been passed.
+     *
+     * @param category the category to filter on, or {@code null} to list all transactions
+     * @param expected the number of transactions in the listing
+     */
+    private void walk(ScenarioReport report, ScenarioReport.Table table, String sessionId, String category,
+                      int expected) {
+        List<Long> latencies = new ArrayList<>();
+        int returned = 0;
+        int page = 0;
+        for (int offset = 0; offset < expected; offset += limit * pageStep, page += pageStep) {
+            int[] size = new int[1];
+            int pageOffset = offset;
+            long latency = Latencies.time(() -> size[0] = listPage(sessionId, category, pageOffset));
+            latencies.add(latency);
+            returned += size[0];
+            table.row(category == null ? "" : category, page, offset, size[0], latency / 1000.0);
+        }
+        if (latencies.isEmpty()) {
+            return;
+        }
+
+        // The median latencies of the first and last percent of the pages.
+        int window = Math.max(1, latencies.size() / 100);
+        double first = median(latencies.subList(0, window));
+        double last = median(latencies.subList(latencies.size() - window, latencies.size()));
+        long lastOffset = (long) (latencies.size() - 1) * limit * pageStep;
+        report.summary("%-12s %7d pages, %8d of %d transactions returned: p50 %.3f ms on the first pages and "
+                        + "%.3f ms at offset %d (exponent %.2f)",
+                category == null ? "(all)" : category, latencies.size(), returned, expected, first, last,
+                lastOffset, Latencies.exponent(first, last, limit, lastOffset + limit));
+    }
+
+    private int listPage(String sessionId, String category, int offset) {
+        RequestSpecification request = given()
+                .header("X-session-ID", sessionId)
+                .queryParam("offset", offset)
+                .queryParam("limit", limit);
+        if (category != null) {
+            request.queryParam("category", category);
+        }
+        return request
+                .get("api/v1/transactions")
+                .then()
+                .assertThat()
+                .statusCode(200)
+                .extract()
+                .response()
+                .getBody()
+                .jsonPath()
+                .getList("$")
+                .size();
+    }
+
+    /**
+     * Returns the median of latencies in microseconds, in milliseconds.
+     */
+    private static double median(List<Long> latencies) {
+        long[] sorted = new long[latencies.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1000.0;
+    }
+}
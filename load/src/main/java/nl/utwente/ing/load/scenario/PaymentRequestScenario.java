@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+import nl.utwente.ing.RequestBodies;
+import nl.utwente.ing.TestClock;
+import nl.utwente.ing.Timestamps;
+import nl.utwente.ing.Util;
+import org.HdrHistogram.Histogram;
+
+import java.time.ZonedDateTime;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Measures how creating transactions and listing payment requests behave as deposits are matched against many open
+ * payment requests.
+ * <p>
+ * A session is seeded with payment requests for distinct amounts, with a varying number of requests and due dates
+ * between one and 24 months ahead. Then deposits are created one after another, like in the
+ * {@code multiplePaymentRequestFunctionalityTest}; a share of them matches the amount of a payment request, the
+ * others match none. After every block of deposits the payment requests are listed. As every payment request embeds
+ * the transactions answering it, the size of that response grows with every matching deposit, which is reported
+ * alongside the latencies. The scenario is configured using the following system properties:
+ * <ul>
+ *     <li>{@code scenario.requests}: the number of payment requests (default 2000)</li>
+ *     <li>{@code scenario.deposits}: the number of deposits (default 5000)</li>
+ *     <li>{@code scenario.matching}: the percentage of deposits matching a payment request (default 50)</li>
+ *     <li>{@code scenario.block}: the number of deposits between listings of the payment requests (default 500)</li>
+ *     <li>{@code scenario.samples}: the number of listings after every block (default 5)</li>
+ * </ul>
+ * The results are written to {@code payment-requests.csv}, with one row per block of deposits.
+ */
+public class PaymentRequestScenario implements Scenario {
+
+    // Payment requests are created for the amounts FIRST_AMOUNT, FIRST_AMOUNT + 1 and so on.
+    private static final int FIRST_AMOUNT = 10;
+    // Payment requests are only created for whole amounts, so this amount never matches any of them.
+    private static final double UNMATCHED_AMOUNT = 1.5;
+
+    private final int requests = Integer.getInteger("scenario.requests", 2000);
+    private final int deposits = Integer.getInteger("scenario.deposits", 5000);
+    private final int matchingPercentage = Integer.getInteger("scenario.matching", 50);
+    private final int block = Integer.getInteger("scenario.block", 500);
+    private final int samples = Integer.getInteger("scenario.samples", 5);
+
+    public static void main(String[] args) throws Exception {
+        Scenarios.launch(new PaymentRequestScenario());
+    }
+
+    @Override
+    public String getName() {
+        return "payment-requests";
+    }
+
+    @Override
+    public void run(ScenarioReport report) throws Exception {
+        ScenarioReport.Table table = report.table("payment-requests", "deposits", "matching_deposits",
+                "deposit_p50_ms", "deposit_p99_ms", "deposit_max_ms", "list_p50_ms", "list_max_ms", "response_bytes",
+                "embedded_transactions", "filled_requests");
+
+        String sessionId = Util.getSessionID();
+        ZonedDateTime now = TestClock.now();
+        Datasets.create(Util.Resource.PAYMENT_REQUESTS, sessionId, requests,
+                i -> RequestBodies.paymentRequest("Payment request " + i, Timestamps.format(now.plusMonths(1 + i % 24)),
+                        FIRST_AMOUNT + i, 1 + i % 5));
+
+        String date = Timestamps.format(now);
+        int matching = 0;
+        Listing first = null;
+        Listing last = null;
+        for (int created = 0; created < deposits; ) {
+            Histogram depositLatencies = Latencies.histogram();
+            for (int i = 0; i < block && created < deposits; i++, created++) {
+                boolean matches = created % 100 < matchingPercentage;
+                double amount = matches ? FIRST_AMOUNT + matching % requests : UNMATCHED_AMOUNT;
+                if (matches) {
+                    matching++;
+                }
+                String body = RequestBodies.transaction(date, amount, Datasets.IBAN, "deposit",
+                        "Payment request deposit " + created);
+                depositLatencies.recordValue(Latencies.time(() -> createTransaction(sessionId, body)));
+            }
+
+            Listing listing = list(sessionId);
+            if (first == null) {
+                first = listing;
+            }
+            last = listing;
+            table.row(created, matching, ScenarioReport.millis(depositLatencies, 50.0),
+                    ScenarioReport.millis(depositLatencies, 99.0), depositLatencies.getMaxValue() / 1000.0,
+                    ScenarioReport.millis(listing.latencies, 50.0), listing.latencies.getMaxValue() / 1000.0,
+                    listing.bytes, listing.transactions, listing.filled);
+            report.summary("%6d deposits: deposit p50 %.3f ms, listing p50 %.3f ms, %d bytes, %d embedded "
+                            + "transactions, %d of %d requests filled",
+                    created, ScenarioReport.millis(depositLatencies, 50.0),
+                    ScenarioReport.millis(listing.latencies, 50.0), listing.bytes, listing.transactions,
+                    listing.filled, requests);
+        }
+
+        if (first != null && last.transactions > first.transactions) {
+            report.summary("The listing grew by %.1f bytes and %.4f ms per embedded transaction",
+                    (double) (last.bytes - first.bytes) / (last.transactions - first.transactions),
+                    (ScenarioReport.millis(last.latencies, 50.0) - ScenarioReport.millis(first.latencies, 50.0))
+                            / (last.transactions - first.transactions));
+        }
+    }
+
+    /**
+     * Lists the payment requests a number of times, measuring the latency and the size of the last response.
+     */
+    private Listing list(String sessionId) {
+        Listing listing = new Listing();
+        Response[] response = new Response[1];
+        listing.latencies = Latencies.sample(samples, () -> response[0] = given()
+                .header("X-session-ID", sessionId)
+                .get("api/v1/paymentRequests")
+                .then()
+                .assertThat()
+                .statusCode(200)
+                .extract()
+                .response());
+
+        listing.bytes = response[0].getBody().asByteArray().length;
+        JsonPath path = response[0].getBody().jsonPath();
+        listing.transactions = path.getList("transactions.flatten()").size();
+        listing.filled = path.getList("findAll { it.filled }").size();
+        return listing;
+    }
+
+    private static void createTransaction(String sessionId, String body) {
+        given()
+                .header("X-session-ID", sessionId)
+                .body(body)
+                .post("api/v1/transactions")
+                .then()
+                .assertThat()
+                .statusCode(201);
+    }
+
+    /**
+     * The measurements of listing the payment requests after a block of deposits.
+     */
+    private static class Listing {
+
+        private Histogram latencies;
+        private int bytes;
+        private int transactions;
+        private int filled;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import nl.utwente.ing.RequestBodies;
+import nl.utwente.ing.Timestamps;
+import nl.utwente.ing.Util;
+import org.HdrHistogram.Histogram;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Measures how reading the balance and the saving goals depends on the number of months over which saving goals have
+ * been processed, extending the scenario of the {@code savingGoalFunctionalityTest}.
+ * <p>
+ * A session receives a large initial deposit and hundreds of saving goals, each saving a different amount per month
+ * with a different minimum balance, some of which are completed along the way. The time of the API is given by its
+ * latest transaction, so the period of the session is extended step by step by creating transactions spread over the
+ * new months, ending with a transaction on the last day of the step. After every step
+ * {@code balance/history?intervals=1} and the saving goals are requested. The scenario is configured using the
+ * following system properties:
+ * <ul>
+ *     <li>{@code scenario.goals}: the number of saving goals (default 200)</li>
+ *     <li>{@code scenario.months}: the numbers of months after the initial deposit at which is measured
+ *     (default 1,3,6,12,24,36,60,84,120,150)</li>
+ *     <li>{@code scenario.transactionsPerMonth}: the number of transactions per month (default 10)</li>
+ *     <li>{@code scenario.start}: the date of the initial deposit (default 2008-01-01T00:00:00.000Z)</li>
+ *     <li>{@code scenario.samples}: the number of requests per endpoint and step (default 20)</li>
+ * </ul>
+ * The results are written to {@code saving-goals.csv}.
+ */
+public class SavingGoalsScenario implements Scenario {
+
+    private static final double INITIAL_DEPOSIT = 10_000_000;
+
+    private final int goals = Integer.getInteger("scenario.goals", 200);
+    private final int[] months = Scenarios.getInts("scenario.months", "1,3,6,12,24,36,60,84,120,150");
+    private final int transactionsPerMonth = Integer.getInteger("scenario.transactionsPerMonth", 10);
+    private final ZonedDateTime start = ZonedDateTime.parse(
+            System.getProperty("scenario.start", "2008-01-01T00:00:00.000Z")).withZoneSameInstant(ZoneOffset.UTC);
+    private final int samples = Integer.getInteger("scenario.samples", 20);
+
+    public static void main(String[] args) throws Exception {
+        Scenarios.launch(new SavingGoalsScenario());
+    }
+
+    @Override
+    public String getName() {
+        return "saving-goals";
+    }
+
+    @Override
+    public void run(ScenarioReport report) throws Exception {
+        ScenarioReport.Table table = report.table("saving-goals", "months", "transactions", "goals",
+                "history_p50_ms", "history_p99_ms", "history_max_ms", "goals_p50_ms", "goals_p99_ms",
+                "goals_max_ms");
+        Arrays.sort(months);
+        double[] historyMedians = new double[months.length];
+        double[] goalMedians = new double[months.length];
+
+        String sessionId = Util.getSessionID();
+        createTransaction(sessionId, RequestBodies.transaction(Timestamps.format(start), INITIAL_DEPOSIT,
+                Datasets.IBAN, "deposit", "Initial deposit"));
+        Datasets.create(Util.Resource.SAVING_GOALS, sessionId, goals, i -> {
+            double savePerMonth = 5 + i % 50;
+            // One in four goals is completed within one to ten years, the others keep saving.
+            double goal = i % 4 == 0 ? savePerMonth * (12 + i % 109) : 1_000_000_000;
+            return RequestBodies.savingGoal("Saving goal " + i, goal, savePerMonth, (i % 10) * 100_000);
+        });
+
+        int transactions = 1;
+        int previous = 0;
+        for (int m = 0; m < months.length; m++) {
+            long fromMillis = start.plusMonths(previous).toInstant().toEpochMilli();
+            long toMillis = start.plusMonths(months[m]).toInstant().toEpochMilli();
+            int count = (months[m] - previous) * transactionsPerMonth;
+            Datasets.createTransactions(sessionId, count, i -> RequestBodies.transaction(
+                    Datasets.spreadDate(i, count, fromMillis, toMillis), 10 + i % 90, Datasets.IBAN,
+                    i % 2 == 0 ? "deposit" : "withdrawal", "Monthly transaction"));
+            // The last transaction is created separately, so the time of the API ends up at the end of the step.
+            createTransaction(sessionId, RequestBodies.transaction(Timestamps.format(toMillis), 1, Datasets.IBAN,
+                    "deposit", "End of step"));
+            transactions += count + 1;
+            previous = months[m];
+
+            Histogram history = Latencies.sample(samples, () -> get(sessionId, "api/v1/balance/history?intervals=1"));
+            Histogram savingGoals = Latencies.sample(samples, () -> get(sessionId, "api/v1/savingGoals"));
+            historyMedians[m] = ScenarioReport.millis(history, 50.0);
+            goalMedians[m] = ScenarioReport.millis(savingGoals, 50.0);
+            table.row(months[m], transactions, goals, historyMedians[m], ScenarioReport.millis(history, 99.0),
+                    history.getMaxValue() / 1000.0, goalMedians[m], ScenarioReport.millis(savingGoals, 99.0),
+                    savingGoals.getMaxValue() / 1000.0);
+            report.summary("%4d months, %7d transactions: balance history p50 %.3f ms, saving goals p50 %.3f ms",
+                    months[m], transactions, historyMedians[m], goalMedians[m]);
+        }
+
+        int last = months.length - 1;
+        report.summary("Between %d and %d months the p50 grows with exponent %.2f for the balance history and %.2f "
+                        + "for the saving goals (0 means rollovers are not replayed on reads)",
+                months[0], months[last],
+                Latencies.exponent(historyMedians[0], historyMedians[last], months[0], months[last]),
+                Latencies.exponent(goalMedians[0], goalMedians[last], months[0], months[last]));
+    }
+
+    private static void createTransaction(String sessionId, String body) {
+        given()
+                .header("X-session-ID", sessionId)
+                .body(body)
+                .post("api/v1/transactions")
+                .then()
+                .assertThat()
+                .statusCode(201);
+    }
+
+    private static void get(String sessionId, String path) {
+        given()
+                .header("X-session-ID", sessionId)
+                .get(path)
+                .then()
+                .assertThat()
+                .statusCode(200);
+    }
+}
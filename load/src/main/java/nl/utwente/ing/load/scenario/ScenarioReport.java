@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The results of a scenario, consisting of CSV tables and a human-readable summary.
+ * <p>
+ * Rows are written as soon as they are added, so the results measured so far survive a scenario which is aborted.
+ * The summary is printed as well as written to {@code summary.txt}.
+ */
+public final class ScenarioReport implements Closeable {
+
+    private final Path directory;
+    private final PrintStream summary;
+    private final List<Table> tables = new ArrayList<>();
+
+    /**
+     * Creates a report in the given directory, which is created if it does not exist.
+     *
+     * @param directory the directory to write the report to
+     * @throws IOException if the directory could not be created
+     */
+    public ScenarioReport(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.summary = open(directory.resolve("summary.txt"));
+    }
+
+    /**
+     * Creates a CSV table, which is written to {@code <name>.csv}.
+     *
+     * @param name the name of the table
+     * @param columns the names of the columns
+     * @return the table
+     * @throws IOException if the table could not be created
+     */
+    public Table table(String name, String... columns) throws IOException {
+        Table table = new Table(open(directory.resolve(name + ".csv")));
+        table.row((Object[]) columns);
+        tables.add(table);
+        return table;
+    }
+
+    /**
+     * Adds a line to the summary.
+     *
+     * @param format the format of the line, as used by {@link String#format(String, Object...)}
+     * @param args the arguments of the format
+     */
+    public void summary(String format, Object... args) {
+        String line = String.format(Locale.ROOT, format, args);
+        System.out.println(line);
+        summary.println(line);
+        summary.flush();
+    }
+
+    @Override
+    public void close() {
+        for (Table table : tables) {
+            table.out.close();
+        }
+        summary.close();
+    }
+
+    /**
+     * Returns a percentile of a histogram of latencies in microseconds, in milliseconds.
+     *
+     * @param histogram the histogram of latencies in microseconds
+     * @param percentile the percentile, e.g. 99.0
+     * @return the latency at the percentile in milliseconds
+     */
+    public static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static PrintStream open(Path file) throws IOException {
+        return new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * A CSV table of a report.
+     */
+    public static final class Table {
+
+        private final PrintStream out;
+
+        private Table(PrintStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Writes a row. Floating point values are written with three decimals.
+         *
+         * @param values the values of the columns
+         */
+        public void row(Object... values) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                Object value = values[i];
+                if (value instanceof Double || value instanceof Float) {
+                    line.append(String.format(Locale.ROOT, "%.3f", ((Number) value).doubleValue()));
+                } else {
+                    line.append(value);
+                }
+            }
+            out.println(line);
+            out.flush();
+        }
+    }
+}
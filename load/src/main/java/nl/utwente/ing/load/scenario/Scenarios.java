@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import nl.utwente.ing.load.ApiTarget;
+
+import java.nio.file.Paths;
+
+/**
+ * Starts scenarios from the command line.
+ * <p>
+ * Every scenario writes its report to {@code <scenario.report>/<name>}, where the {@code scenario.report} system
+ * property defaults to {@code target/scenarios}. Scenarios are parameterized through system properties of their own,
+ * which are listed in their documentation.
+ */
+public final class Scenarios {
+
+    private Scenarios() {
+    }
+
+    /**
+     * Runs a scenario against the API given by {@link ApiTarget} and writes its report.
+     *
+     * @param scenario the scenario to run
+     * @throws Exception if the scenario could not be completed
+     */
+    public static void launch(Scenario scenario) throws Exception {
+        ApiTarget.configure();
+        try (ScenarioReport report = new ScenarioReport(
+                Paths.get(System.getProperty("scenario.report", "target/scenarios"), scenario.getName()))) {
+            scenario.run(report);
+        }
+    }
+
+    /**
+     * Parses a comma separated list of integers from a system property.
+     *
+     * @param property the name of the property
+     * @param defaultValue the list to use when the property is not set
+     * @return the parsed integers
+     */
+    static int[] getInts(String property, String defaultValue) {
+        String[] values = System.getProperty(property, defaultValue).split(",");
+        int[] ints = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ints[i] = Integer.parseInt(values[i].trim());
+        }
+        return ints;
+    }
+}
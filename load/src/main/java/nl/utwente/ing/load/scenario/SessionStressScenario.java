@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.load.scenario;
+
+import nl.utwente.ing.TestClock;
+import nl.utwente.ing.Timestamps;
+import nl.utwente.ing.Util;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Creates a large number of sessions concurrently while checking that sessions stay isolated from each other.
+ * <p>
+ * Every thread repeatedly creates a session. Every so often the new session becomes a tenant by creating a
+ * transaction. Between creating sessions, threads check isolation against a random tenant, like the
+ * {@code differentSessionTransactionIdGetTest}: the transaction of the tenant must not be found using the new session,
+ * must be found using the session of the tenant, the new session must not list any transactions and an unknown
+ * session must be rejected. Every second the throughput and latencies of the last second are reported, so a session
+ * store which slows down as it grows shows up as a trend. The scenario is configured using the following system
+ * properties:
+ * <ul>
+ *     <li>{@code scenario.sessions}: the number of sessions to create (default 200000)</li>
+ *     <li>{@code scenario.threads}: the number of threads creating sessions (default 64)</li>
+ *     <li>{@code scenario.checkEvery}: every how many sessions a thread checks isolation and a new tenant is
+ *     created (default 10)</li>
+ * </ul>
+ * The results are written to {@code sessions.csv}, with one row per second.
+ */
+public class SessionStressScenario implements Scenario {
+
+    private static final String UNKNOWN_SESSION = "unknown-session";
+    // The number of violations of which the details are reported.
+    private static final int REPORTED_VIOLATIONS = 10;
+
+    private final int sessions = Integer.getInteger("scenario.sessions", 200_000);
+    private final int threads = Integer.getInteger("scenario.threads", 64);
+    private final int checkEvery = Math.max(1, Integer.getInteger("scenario.checkEvery", 10));
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final Recorder creations = new Recorder(3);
+    private final Recorder checks = new Recorder(3);
+    private final LongAdder checkCount = new LongAdder();
+    private final AtomicReferenceArray<Tenant> tenants = new AtomicReferenceArray<>(sessions / checkEvery + 1);
+    private final AtomicInteger tenantCount = new AtomicInteger();
+    private final List<String> violations = new ArrayList<>();
+    private final LongAdder violationCount = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        Scenarios.launch(new SessionStressScenario());
+    }
+
+    @Override
+    public String getName() {
+        return "sessions";
+    }
+
+    @Override
+    public void run(ScenarioReport report) throws Exception {
+        ScenarioReport.Table table = report.table("sessions", "second", "sessions", "sessions_per_second",
+                "create_p50_ms", "create_p99_ms", "create_max_ms", "checks", "check_p50_ms", "check_p99_ms");
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "session-stress");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Histogram allCreations = Latencies.histogram();
+        Histogram allChecks = Latencies.histogram();
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(this::createSessions));
+            }
+
+            int second = 0;
+            long lastChecks = 0;
+            while (!allDone(futures)) {
+                Thread.sleep(1000);
+                second++;
+                Histogram creationInterval = creations.getIntervalHistogram();
+                Histogram checkInterval = checks.getIntervalHistogram();
+                allCreations.add(creationInterval);
+                allChecks.add(checkInterval);
+                long totalChecks = checkCount.sum();
+                table.row(second, allCreations.getTotalCount(), creationInterval.getTotalCount(),
+                        ScenarioReport.millis(creationInterval, 50.0), ScenarioReport.millis(creationInterval, 99.0),
+                        creationInterval.getMaxValue() / 1000.0, totalChecks - lastChecks,
+                        ScenarioReport.millis(checkInterval, 50.0), ScenarioReport.millis(checkInterval, 99.0));
+                lastChecks = totalChecks;
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not create sessions", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        allCreations.add(creations.getIntervalHistogram());
+        allChecks.add(checks.getIntervalHistogram());
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        report.summary("Created %d sessions in %.1f s using %d threads: %.1f sessions/s, p50 %.3f ms, p99 %.3f ms, "
+                        + "max %.3f ms",
+                allCreations.getTotalCount(), seconds, threads, allCreations.getTotalCount() / seconds,
+                ScenarioReport.millis(allCreations, 50.0), ScenarioReport.millis(allCreations, 99.0),
+                allCreations.getMaxValue() / 1000.0);
+        report.summary("Ran %d isolation checks against %d tenants: p50 %.3f ms, p99 %.3f ms, %d violations",
+                checkCount.sum(), tenantCount.get(), ScenarioReport.millis(allChecks, 50.0),
+                ScenarioReport.millis(allChecks, 99.0), violationCount.sum());
+        synchronized (violations) {
+            for (String violation : violations) {
+                report.summary("Violation: %s", violation);
+            }
+        }
+    }
+
+    /**
+     * Creates sessions until the total number of sessions has been reached.
+     */
+    private void createSessions() {
+        String date = Timestamps.format(TestClock.now());
+        while (created.getAndIncrement() < sessions) {
+            long start = System.nanoTime();
+            String sessionId = Util.getSessionID();
+            creations.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+            if (ThreadLocalRandom.current().nextInt(checkEvery) == 0) {
+                int available = Math.min(tenantCount.get(), tenants.length());
+                Tenant tenant = available > 0 ? tenants.get(ThreadLocalRandom.current().nextInt(available)) : null;
+                if (tenant != null) {
+                    checks.recordValue(Latencies.time(() -> checkIsolation(sessionId, tenant)));
+                    checkCount.increment();
+                }
+
+                int index = tenantCount.getAndIncrement();
+                if (index < tenants.length()) {
+                    int transactionId = Util.createTestTransaction(date, 100, Datasets.IBAN, "deposit",
+                            "Tenant " + index, sessionId);
+                    tenants.set(index, new Tenant(sessionId, transactionId));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that a new session cannot see the data of a tenant, while the tenant itself can.
+     */
+    private void checkIsolation(String sessionId, Tenant tenant) {
+        String path = String.format("api/v1/transactions/%d", tenant.transactionId);
+        expectStatus(sessionId, path, 404, "the transaction of another session was accessible");
+        expectStatus(tenant.sessionId, path, 200, "a transaction was not accessible by its own session");
+        expectStatus(UNKNOWN_SESSION, path, 401, "an unknown session was accepted");
+
+        int transactions = given()
+                .header("X-session-ID", sessionId)
+                .get("api/v1/transactions")
+                .then()
+                .assertThat()
+                .statusCode(200)
+                .extract()
+                .response()
+                .getBody()
+                .jsonPath()
+                .getList("$")
+                .size();
+        if (transactions > 0) {
+            violation(String.format("new session %s listed %d transactions", sessionId, transactions));
+        }
+    }
+
+    private void expectStatus(String sessionId, String path, int expected, String violation) {
+        int status = given()
+                .header("X-session-ID", sessionId)
+                .get(path)
+                .getStatusCode();
+        if (status != expected) {
+            violation(String.format("%s: GET %s using session %s returned %d instead of %d", violation, path,
+                    sessionId, status, expected));
+        }
+    }
+
+    private void violation(String description) {
+        violationCount.increment();
+        synchronized (violations) {
+            if (violations.size() < REPORTED_VIOLATIONS) {
+                violations.add(description);
+            }
+        }
+    }
+
+    private static boolean allDone(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A session owning a transaction, against which isolation is checked.
+     */
+    private static class Tenant {
+
+        private final String sessionId;
+        private final int transactionId;
+
+        private Tenant(String sessionId, int transactionId) {
+            this.sessionId = sessionId;
+            this.transactionId = transactionId;
+        }
+    }
+}
@@ -26,33 +26,19 @@ package nl.utwente.ing;
 
 import org.junit.*;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
 import static io.restassured.RestAssured.given;
-import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchema;
+import static nl.utwente.ing.JsonSchemas.matchesSchema;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
 public class CategoryRuleTests {
 
-    private static final Path CATEGORYRULE_SCHEMA_PATH = Paths.get("src/test/java/nl/utwente/ing/schemas/categoryrules/categoryrule.json");
-    private static final Path CATEGORYRULE_LIST_SCHEMA_PATH = Paths.get("src/test/java/nl/utwente/ing/schemas/categoryrules/categoryrule-list.json");
+    static final String CATEGORYRULE_SCHEMA_PATH = "categoryrules/categoryrule.json";
+    private static final String CATEGORYRULE_LIST_SCHEMA_PATH = "categoryrules/categoryrule-list.json";
     private static final int INVALID_CATEGORYRULE_ID = -26_07_1581;
-    private static final String TEST_CATEGORYRULE_FORMAT = "{" +
-            "\"description\":\"University of Twente\"," +
-            "\"iBAN\":\"NL39RABO0300065264\"," +
-            "\"type\": \"deposit\"," +
-            "\"category_id\": %d," +
-            "\"applyOnHistory\": %b " +
-            "}";
-    private static final String TEST_CATEGORYRULE_BLANK_FORMAT = "{" +
-            "\"description\":\"\"," +
-            "\"iBAN\":\"\"," +
-            "\"type\": \"\"," +
-            "\"category_id\": %d," +
-            "\"applyOnHistory\": false " +
-            "}";
+    private static final String TEST_CATEGORYRULE_DESCRIPTION = "University of Twente";
+    private static final String TEST_CATEGORYRULE_IBAN = "NL39RABO0300065264";
+    private static final String TEST_CATEGORYRULE_TYPE = "deposit";
     private static final String TEST_TRANSACTION = "{" +
                     "\"date\": \"1889-04-20T19:45:04.030Z\", " +
                     "\"amount\": 213.12, " +
@@ -73,6 +59,9 @@ public class CategoryRuleTests {
     private static Integer testCategoryRuleId;
     private static String sessionId;
 
+    @Rule
+    public LatencyBudgetRule latencyBudget = new LatencyBudgetRule();
+
     /**
      * Sets up the fields which are shared between all tests ensuring that all tests can depend on these
      * fields existing and being set properly.
@@ -130,7 +119,7 @@ public class CategoryRuleTests {
                 .get("api/v1/categoryRules")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORYRULE_LIST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORYRULE_LIST_SCHEMA_PATH))
                 .statusCode(200);
     }
 
@@ -163,7 +152,7 @@ public class CategoryRuleTests {
                 .get("api/v1/categoryRules")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORYRULE_LIST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORYRULE_LIST_SCHEMA_PATH))
                 .statusCode(200);
     }
 
@@ -198,11 +187,11 @@ public class CategoryRuleTests {
     public void categoryRulePostTest() {
         testCategoryRuleId = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format(TEST_CATEGORYRULE_FORMAT, testCategoryId, false))
+                .body(testCategoryRuleBody(false))
                 .post("api/v1/categoryRules")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORYRULE_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORYRULE_SCHEMA_PATH))
                 .statusCode(201)
                 .extract()
                 .response()
@@ -220,7 +209,7 @@ public class CategoryRuleTests {
     @Test
     public void invalidSessionCategoryRulePostTest() {
         given()
-                .body(String.format(TEST_CATEGORYRULE_FORMAT, testCategoryId, false))
+                .body(testCategoryRuleBody(false))
                 .post("api/v1/categoryRules")
                 .then()
                 .assertThat()
@@ -263,7 +252,7 @@ public class CategoryRuleTests {
                 .get(String.format("api/v1/categoryRules/%d", testCategoryRuleId))
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORYRULE_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORYRULE_SCHEMA_PATH))
                 .statusCode(200)
                 .extract()
                 .response()
@@ -389,17 +378,12 @@ public class CategoryRuleTests {
 
         given()
                 .header("X-session-ID", sessionId)
-                .body(String.format("{" +
-                        "\"description\":\"CATEGORY_PUT_TEST\"," +
-                        "\"iBAN\":\"NL39RABO0300065264\"," +
-                        "\"type\": \"deposit\"," +
-                        "\"category_id\": %d," +
-                        "\"applyOnHistory\": false " +
-                        "}", testCategoryId))
+                .body(RequestBodies.categoryRule("CATEGORY_PUT_TEST", TEST_CATEGORYRULE_IBAN, TEST_CATEGORYRULE_TYPE,
+                        testCategoryId, false))
                 .put(String.format("api/v1/categoryRules/%d", testCategoryRuleId))
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORYRULE_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORYRULE_SCHEMA_PATH))
                 .statusCode(200);
 
         // Ensure that it was actually changed
@@ -429,7 +413,7 @@ public class CategoryRuleTests {
         categoryRulePostTest();
 
         given()
-                .body(String.format(TEST_CATEGORYRULE_FORMAT, testCategoryId, false))
+                .body(testCategoryRuleBody(false))
                 .put(String.format("api/v1/categoryRules/%d", testCategoryRuleId))
                 .then()
                 .assertThat()
@@ -446,7 +430,7 @@ public class CategoryRuleTests {
     public void validSessionCategoryRulesByInvalidIdPutTest() {
         given()
                 .header("X-session-ID", sessionId)
-                .body(String.format(TEST_CATEGORYRULE_FORMAT, testCategoryId, false))
+                .body(testCategoryRuleBody(false))
                 .put(String.format("api/v1/categoryRules/%d", INVALID_CATEGORYRULE_ID))
                 .then()
                 .assertThat()
@@ -485,11 +469,11 @@ public class CategoryRuleTests {
         // Create a new category rule
         testCategoryRuleId = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format(TEST_CATEGORYRULE_FORMAT, testCategoryId, false))
+                .body(testCategoryRuleBody(false))
                 .post("api/v1/categoryRules")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORYRULE_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORYRULE_SCHEMA_PATH))
                 .statusCode(201)
                 .extract()
                 .response()
@@ -532,6 +516,7 @@ public class CategoryRuleTests {
      * First submits a transaction and then creates a new category rule, testing whether the category was set.
      */
     @Test
+    @LatencyBudget(p99Millis = 1000, repeat = 5, path = "api/v1/categoryRules")
     public void applyOnHistoryCategoryRuleTest() {
         // Create a new transaction
         testTransactionId = given()
@@ -550,11 +535,11 @@ public class CategoryRuleTests {
         // Create a new category rule with applyOnHistory set to true, matching the transaction created earlier
         testCategoryRuleId = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format(TEST_CATEGORYRULE_FORMAT, testCategoryId, true))
+                .body(testCategoryRuleBody(true))
                 .post("api/v1/categoryRules")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORYRULE_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORYRULE_SCHEMA_PATH))
                 .statusCode(201)
                 .extract()
                 .response()
@@ -587,11 +572,11 @@ public class CategoryRuleTests {
         // Create a new category rule
         testCategoryRuleId = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format(TEST_CATEGORYRULE_FORMAT, testCategoryId, false))
+                .body(testCategoryRuleBody(false))
                 .post("api/v1/categoryRules")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORYRULE_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORYRULE_SCHEMA_PATH))
                 .statusCode(201)
                 .extract()
                 .response()
@@ -639,11 +624,11 @@ public class CategoryRuleTests {
         // Create a new category rule with all fields left blank, causing all transactions to match it.
         testCategoryRuleId = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format(TEST_CATEGORYRULE_BLANK_FORMAT, testCategoryId))
+                .body(RequestBodies.categoryRule("", "", "", testCategoryId, false))
                 .post("api/v1/categoryRules")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORYRULE_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORYRULE_SCHEMA_PATH))
                 .statusCode(201)
                 .extract()
                 .response()
@@ -680,4 +665,15 @@ public class CategoryRuleTests {
 
         assertEquals(testCategoryId.intValue(), categoryId);
     }
+
+    /**
+     * Helper function to create the body of the category rule used for testing.
+     *
+     * @param applyOnHistory whether the rule should be applied to existing transactions
+     * @return the JSON representation of the category rule
+     */
+    private static String testCategoryRuleBody(boolean applyOnHistory) {
+        return RequestBodies.categoryRule(TEST_CATEGORYRULE_DESCRIPTION, TEST_CATEGORYRULE_IBAN,
+                TEST_CATEGORYRULE_TYPE, testCategoryId, applyOnHistory);
+    }
 }
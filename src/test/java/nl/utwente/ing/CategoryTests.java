@@ -28,18 +28,15 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
 import static io.restassured.RestAssured.get;
 import static io.restassured.RestAssured.given;
-import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchema;
+import static nl.utwente.ing.JsonSchemas.matchesSchema;
 import static org.junit.Assert.assertEquals;
 
 public class CategoryTests {
 
-    static final Path CATEGORY_SCHEMA_PATH = Paths.get("src/test/java/nl/utwente/ing/schemas/categories/category.json");
-    private static final Path CATEGORY_LIST_SCHEMA_PATH = Paths.get("src/test/java/nl/utwente/ing/schemas/categories/category-list.json");
+    static final String CATEGORY_SCHEMA_PATH = "categories/category.json";
+    private static final String CATEGORY_LIST_SCHEMA_PATH = "categories/category-list.json";
 
     private static Integer testCategoryId;
     private static final String TEST_CATEGORY_NAME = "Test Category";
@@ -93,7 +90,7 @@ public class CategoryTests {
                 .get("api/v1/categories")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORY_LIST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORY_LIST_SCHEMA_PATH))
                 .statusCode(200);
     }
 
@@ -125,11 +122,11 @@ public class CategoryTests {
     public void categoriesPostTest() {
         testCategoryId = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format("{\"name\": \"%s\"}", TEST_CATEGORY_NAME))
+                .body(RequestBodies.category(TEST_CATEGORY_NAME))
                 .post("api/v1/categories")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORY_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORY_SCHEMA_PATH))
                 .statusCode(201)
                 .extract()
                 .response()
@@ -147,7 +144,7 @@ public class CategoryTests {
     @Test
     public void invalidSessionCategoriesPostTest() {
         given()
-                .body(String.format("{\"name\": \"%s\"}", TEST_CATEGORY_NAME))
+                .body(RequestBodies.category(TEST_CATEGORY_NAME))
                 .post("api/v1/categories")
                 .then()
                 .assertThat()
@@ -192,7 +189,7 @@ public class CategoryTests {
                 .get(String.format("api/v1/categories/%d", testCategoryId))
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORY_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORY_SCHEMA_PATH))
                 .statusCode(200)
                 .extract()
                 .response()
@@ -257,11 +254,11 @@ public class CategoryTests {
 
         String categoryName = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format("{\"name\": \"%s\"}", newCategoryName))
+                .body(RequestBodies.category(newCategoryName))
                 .put(String.format("api/v1/categories/%d", testCategoryId))
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CATEGORY_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CATEGORY_SCHEMA_PATH))
                 .statusCode(200)
                 .extract()
                 .response()
@@ -284,7 +281,7 @@ public class CategoryTests {
 
         given()
                 .header("X-session-ID", sessionId)
-                .body(String.format("{\"name\": \"%s\"}", TEST_CATEGORY_NAME))
+                .body(RequestBodies.category(TEST_CATEGORY_NAME))
                 .put(String.format("api/v1/categories/%d", INVALID_CATEGORY_ID))
                 .then()
                 .assertThat()
@@ -302,7 +299,7 @@ public class CategoryTests {
         categoriesPostTest();
 
         given()
-                .body(String.format("{\"name\": \"%s\"}", TEST_CATEGORY_NAME))
+                .body(RequestBodies.category(TEST_CATEGORY_NAME))
                 .put(String.format("api/v1/categories/%d", testCategoryId))
                 .then()
                 .assertThat()
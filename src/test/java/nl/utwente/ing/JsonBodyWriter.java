@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+/**
+ * Writes flat JSON objects into a buffer which is reused between documents.
+ * <p>
+ * A writer is not thread-safe; use one writer per thread, e.g. through {@link RequestBodies}.
+ */
+public final class JsonBodyWriter {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder buffer = new StringBuilder(256);
+    // Whether the next field is the first one of the current object, and thus not preceded by a comma.
+    private boolean first;
+
+    /**
+     * Clears the buffer and starts a new document.
+     *
+     * @return this writer
+     */
+    public JsonBodyWriter begin() {
+        buffer.setLength(0);
+        buffer.append('{');
+        first = true;
+        return this;
+    }
+
+    public JsonBodyWriter field(String name, String value) {
+        name(name);
+        if (value == null) {
+            buffer.append("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    public JsonBodyWriter field(String name, long value) {
+        name(name);
+        buffer.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a number field. Whole numbers are written without a fraction, e.g. {@code 100} instead of
+     * {@code 100.0}.
+     *
+     * @throws IllegalArgumentException if the value is NaN or infinite, as JSON cannot represent it
+     */
+    public JsonBodyWriter field(String name, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Field " + name + " is not a finite number: " + value);
+        }
+        name(name);
+        if (value == (long) value) {
+            buffer.append((long) value);
+        } else {
+            buffer.append(value);
+        }
+        return this;
+    }
+
+    public JsonBodyWriter field(String name, boolean value) {
+        name(name);
+        buffer.append(value);
+        return this;
+    }
+
+    /**
+     * Starts a nested object, which is closed using {@link #endObject()}.
+     *
+     * @param name the name of the field containing the object
+     * @return this writer
+     */
+    public JsonBodyWriter beginObject(String name) {
+        name(name);
+        buffer.append('{');
+        first = true;
+        return this;
+    }
+
+    public JsonBodyWriter endObject() {
+        buffer.append('}');
+        first = false;
+        return this;
+    }
+
+    /**
+     * Closes the document.
+     *
+     * @return the contents of the buffer, which stays valid until the next call to {@link #begin()}
+     */
+    public CharSequence end() {
+        buffer.append('}');
+        return buffer;
+    }
+
+    private void name(String name) {
+        if (!first) {
+            buffer.append(',');
+        }
+        first = false;
+        string(name);
+        buffer.append(':');
+    }
+
+    /**
+     * Appends a quoted and escaped JSON string.
+     */
+    private void string(String value) {
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                case '\b':
+                    buffer.append("\\b");
+                    break;
+                case '\f':
+                    buffer.append("\\f");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        buffer.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        buffer.append(c);
+                    }
+            }
+        }
+        buffer.append('"');
+    }
+}
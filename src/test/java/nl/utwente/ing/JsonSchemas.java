@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.load.configuration.LoadingConfiguration;
+import com.github.fge.jsonschema.core.load.configuration.LoadingConfigurationBuilder;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeMatcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Registry holding every JSON schema used by the tests in a precompiled form.
+ * <p>
+ * All files below the schema directory are read and compiled exactly once, the first time this class is used.
+ * The {@code file:} references between schemas are served from memory instead of from disk, so the registry
+ * also works when the working directory is not the root of this repository. The compiled schemas are immutable
+ * and may be shared between threads.
+ */
+public final class JsonSchemas {
+
+    /**
+     * The directory containing the schemas, as used by the {@code $ref} entries inside the schema files.
+     */
+    private static final String SCHEMA_DIRECTORY = "src/test/java/nl/utwente/ing/schemas";
+
+    private static final Map<String, JsonSchema> SCHEMAS = loadSchemas(
+            Paths.get(System.getProperty("schemas.dir", SCHEMA_DIRECTORY)));
+
+    private JsonSchemas() {
+    }
+
+    /**
+     * Makes sure all schemas have been loaded. Calling this before running any tests moves the cost of
+     * compiling the schemas out of the first test which happens to use them.
+     */
+    public static void load() {
+        // Loading happens in the static initializer, which has run by the time this method is entered.
+    }
+
+    /**
+     * Returns the compiled schema stored at the given location.
+     *
+     * @param name the location of the schema relative to the schema directory, e.g. {@code session.json}
+     * @return the compiled schema
+     * @throws IllegalArgumentException if no schema exists at the given location
+     */
+    public static JsonSchema get(String name) {
+        JsonSchema schema = SCHEMAS.get(name);
+        if (schema == null) {
+            throw new IllegalArgumentException(String.format("Unknown JSON schema: %s", name));
+        }
+        return schema;
+    }
+
+    /**
+     * Creates a matcher which checks whether a response body is valid according to the given schema.
+     * This is the precompiled counterpart of RestAssured's {@code matchesJsonSchema}.
+     *
+     * @param name the location of the schema relative to the schema directory, e.g. {@code session.json}
+     * @return a matcher for response bodies
+     */
+    public static Matcher<String> matchesSchema(String name) {
+        return new SchemaMatcher(name, get(name));
+    }
+
+    /**
+     * Reads and compiles all schemas below the given directory.
+     *
+     * @param directory the directory containing the schema files
+     * @return the compiled schemas, keyed by their location relative to the directory
+     */
+    private static Map<String, JsonSchema> loadSchemas(Path directory) {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            files = stream.filter(path -> path.toString().endsWith(".json")).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list the JSON schemas in " + directory.toAbsolutePath(), e);
+        }
+
+        // Preload every schema under the URI used to reference it, so references never hit the file system.
+        LoadingConfigurationBuilder loading = LoadingConfiguration.newBuilder();
+        Map<String, String> uris = new HashMap<>();
+        for (Path file : files) {
+            String name = directory.relativize(file).toString().replace('\\', '/');
+            String uri = String.format("file:%s/%s", SCHEMA_DIRECTORY, name);
+            try {
+                loading.preloadSchema(uri, JsonLoader.fromFile(file.toFile()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read JSON schema " + file.toAbsolutePath(), e);
+            }
+            uris.put(name, uri);
+        }
+
+        // A single factory is used, so references shared between schemas are resolved only once.
+        JsonSchemaFactory factory = JsonSchemaFactory.newBuilder()
+                .setLoadingConfiguration(loading.freeze())
+                .freeze();
+        Map<String, JsonSchema> schemas = new HashMap<>();
+        for (Map.Entry<String, String> entry : uris.entrySet()) {
+            try {
+                schemas.put(entry.getKey(), factory.getJsonSchema(entry.getValue()));
+            } catch (ProcessingException e) {
+                throw new IllegalStateException("Could not compile JSON schema " + entry.getKey(), e);
+            }
+        }
+        return Collections.unmodifiableMap(schemas);
+    }
+
+    /**
+     * Hamcrest matcher validating a JSON document against a precompiled schema.
+     */
+    private static class SchemaMatcher extends TypeSafeMatcher<String> {
+
+        private final String name;
+        private final JsonSchema schema;
+
+        private SchemaMatcher(String name, JsonSchema schema) {
+            this.name = name;
+            this.schema = schema;
+        }
+
+        @Override
+        protected boolean matchesSafely(String body) {
+            try {
+                return validate(body).isSuccess();
+            } catch (IOException | ProcessingException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void describeTo(Description description) {
+            description.appendText("a JSON document matching schema ").appendValue(name);
+        }
+
+        @Override
+        protected void describeMismatchSafely(String body, Description mismatchDescription) {
+            try {
+                mismatchDescription.appendText(validate(body).toString());
+            } catch (IOException | ProcessingException e) {
+                mismatchDescription.appendText("could not be validated: ").appendText(e.getMessage());
+            }
+        }
+
+        private ProcessingReport validate(String body) throws IOException, ProcessingException {
+            JsonNode instance = JsonLoader.fromString(body);
+            return schema.validate(instance);
+        }
+    }
+}
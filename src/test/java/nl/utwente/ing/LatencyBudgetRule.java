@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces the {@link LatencyBudget} of the tests in a class, for example:
+ * <pre>
+ * &#64;Rule
+ * public LatencyBudgetRule latencyBudget = new LatencyBudgetRule();
+ *
+ * &#64;Test
+ * &#64;LatencyBudget(p99Millis = 500, repeat = 10, path = "api/v1/balance/history")
+ * public void balanceHistoryTest() { ... }
+ * </pre>
+ * The requests are timed by a RestAssured filter, from sending the request until the response has been received.
+ * Only requests sent from the thread running the test are timed. Budgets are only enforced when the
+ * {@code latency.budgets} system property is set to {@code true}, e.g. in performance runs; otherwise annotated tests
+ * run only once, so functional runs do not fail on timing.
+ */
+public class LatencyBudgetRule implements TestRule {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("latency.budgets", "false"));
+    // The latencies of the test running on the current thread, if it has a budget.
+    private static final ThreadLocal<Timings> TIMINGS = new ThreadLocal<>();
+
+    private static boolean installed;
+
+    public LatencyBudgetRule() {
+        install();
+    }
+
+    /**
+     * Adds the timing filter to the default filters of RestAssured. Calling this method more than once has no
+     * further effect. The filters of RestAssured are not thread-safe, so this method should be called before tests
+     * are run concurrently.
+     */
+    public static synchronized void install() {
+        if (!installed) {
+            RestAssured.filters(new TimingFilter());
+            installed = true;
+        }
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        LatencyBudget budget = description.getAnnotation(LatencyBudget.class);
+        if (budget == null || !ENABLED) {
+            return base;
+        }
+
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                Timings timings = new Timings(budget.path());
+                TIMINGS.set(timings);
+                try {
+                    for (int i = 0; i < budget.repeat(); i++) {
+                        base.evaluate();
+                    }
+                } finally {
+                    TIMINGS.remove();
+                }
+                timings.check(budget, description);
+            }
+        };
+    }
+
+    /**
+     * Removes the leading slash of a path. RestAssured adds one to the paths of requests, while budgets may be given
+     * with or without one.
+     */
+    private static String stripSlash(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    /**
+     * Times the requests of the test running on the current thread.
+     */
+    private static class TimingFilter implements Filter {
+
+        @Override
+        public Response filter(FilterableRequestSpecification requestSpec,
+                               FilterableResponseSpecification responseSpec, FilterContext context) {
+            Timings timings = TIMINGS.get();
+            if (timings == null || !stripSlash(requestSpec.getUserDefinedPath()).startsWith(timings.path)) {
+                return context.next(requestSpec, responseSpec);
+            }
+
+            long start = System.nanoTime();
+            Response response = context.next(requestSpec, responseSpec);
+            timings.add(System.nanoTime() - start);
+            return response;
+        }
+    }
+
+    /**
+     * The latencies of the timed requests of a single test, in nanoseconds.
+     */
+    private static class Timings {
+
+        private final String path;
+        private long[] latencies = new long[64];
+        private int count;
+
+        private Timings(String path) {
+            this.path = stripSlash(path);
+        }
+
+        private void add(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+
+        /**
+         * Fails if the 99th percentile of the latencies exceeds the budget.
+         */
+        private void check(LatencyBudget budget, Description description) {
+            if (count == 0) {
+                throw new AssertionError(String.format("%s did not send any requests to '%s' to time",
+                        description.getMethodName(), path));
+            }
+
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            // The nearest-rank percentile, the smallest latency which is at least as high as 99% of all latencies.
+            long p99 = TimeUnit.NANOSECONDS.toMillis(sorted[(int) Math.ceil(0.99 * count) - 1]);
+            if (p99 > budget.p99Millis()) {
+                throw new AssertionError(String.format(
+                        "%s exceeded its latency budget: the p99 of %d requests was %d ms (max %d ms), "
+                                + "while the budget is %d ms",
+                        description.getMethodName(), count, p99,
+                        TimeUnit.NANOSECONDS.toMillis(sorted[count - 1]), budget.p99Millis()));
+            }
+        }
+    }
+}
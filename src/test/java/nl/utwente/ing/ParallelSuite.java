@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+import org.junit.runner.Runner;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.Suite;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+import org.junit.runners.model.RunnerScheduler;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Suite runner which is able to run the test classes of a suite, and optionally their test methods, concurrently.
+ * <p>
+ * The mode is selected using the {@code suite.parallel} system property:
+ * <ul>
+ *     <li>{@code none} (default): all classes and methods run one after another, like {@link Suite}.</li>
+ *     <li>{@code classes}: every test class runs on its own thread.</li>
+ *     <li>{@code methods}: like {@code classes}, and additionally the methods of every class annotated with
+ *     {@link ConcurrentMethods} run on their own thread.</li>
+ * </ul>
+ * The number of threads per level can be limited using the {@code suite.threads} system property.
+ */
+public class ParallelSuite extends Suite {
+
+    /**
+     * Marks a test class whose test methods do not share mutable state, so that they may run concurrently when
+     * the suite runs in {@code methods} mode. Every method of such a class either uses its own session or only
+     * reads the fixtures set up by its {@code @BeforeClass} method. Static helpers used by the methods must be
+     * thread-safe as well: dates are formatted through {@link Timestamps}, never through a shared
+     * {@link java.text.SimpleDateFormat}.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    public @interface ConcurrentMethods {
+    }
+
+    private enum Mode {
+        NONE, CLASSES, METHODS
+    }
+
+    public ParallelSuite(Class<?> klass, RunnerBuilder builder) throws InitializationError {
+        super(klass, builder);
+
+        Mode mode = mode();
+        if (mode == Mode.NONE) {
+            return;
+        }
+
+        List<Runner> children = getChildren();
+        setScheduler(new ExecutorScheduler("suite", threadCount(children.size())));
+
+        if (mode == Mode.METHODS) {
+            for (Runner child : children) {
+                if (child instanceof ParentRunner
+                        && child.getDescription().getAnnotation(ConcurrentMethods.class) != null) {
+                    ParentRunner<?> runner = (ParentRunner<?>) child;
+                    runner.setScheduler(new ExecutorScheduler(runner.getDescription().getDisplayName(),
+                            threadCount(runner.testCount())));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the mode from the {@code suite.parallel} system property.
+     *
+     * @return the selected mode
+     * @throws InitializationError if the property does not name a mode
+     */
+    private static Mode mode() throws InitializationError {
+        String value = System.getProperty("suite.parallel", "none");
+        try {
+            return Mode.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            List<String> modes = new ArrayList<>();
+            for (Mode mode : Mode.values()) {
+                modes.add(mode.name().toLowerCase(Locale.ROOT));
+            }
+            throw new InitializationError(String.format("Invalid value for suite.parallel: %s, expected one of %s",
+                    value, String.join(", ", modes)));
+        }
+    }
+
+    /**
+     * Determines the number of threads to use for the given number of children.
+     *
+     * @param childCount the number of children to run concurrently
+     * @return the number of threads to use, at least one
+     */
+    private static int threadCount(int childCount) {
+        int limit = Integer.getInteger("suite.threads", Integer.MAX_VALUE);
+        return Math.max(1, Math.min(childCount, limit));
+    }
+
+    /**
+     * Scheduler which runs every child on a thread pool and waits for all of them to complete when finished.
+     */
+    private static class ExecutorScheduler implements RunnerScheduler {
+
+        private final ExecutorService executor;
+        private final List<Future<?>> futures = new ArrayList<>();
+
+        private ExecutorScheduler(String name, int threads) {
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, String.format("%s-%d", name, counter.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            futures.add(executor.submit(childStatement));
+        }
+
+        @Override
+        public void finished() {
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Test failures are reported through the notifier, so this only happens for errors in the runner.
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
@@ -25,33 +25,24 @@
 package nl.utwente.ing;
 
 import static io.restassured.RestAssured.given;
-import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchema;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.List;
+import static nl.utwente.ing.JsonSchemas.matchesSchema;
+import java.time.ZonedDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.junit.AfterClass;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+@ParallelSuite.ConcurrentMethods
 public class PaymentRequestsTests {
 
-    private static final Path PAYMENT_REQUEST_SCHEMA_PATH = Paths.get("src/test/java/nl/utwente/ing/schemas/paymentrequest.json");
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-    private static final String PAYMENT_REQUEST_FORMAT =
-            "{" +
-                    "\"description\": \"%s\"," +
-                    "\"due_date\": \"%s\"," +
-                    "\"amount\": %s," +
-                    "\"number_of_requests\": %d" +
-                    "}";
+    private static final String PAYMENT_REQUEST_SCHEMA_PATH = "paymentrequest.json";
 
     private static String sessionId;
-    private static List<TestTransaction> testTransactions = new ArrayList<>();
+    // The sessions used for testing, of which all test data should be deleted after running all tests.
+    private static Set<String> testSessions = ConcurrentHashMap.newKeySet();
 
     /**
      * Sets up the fields which are shared between all tests ensuring that all tests can depend on these
@@ -60,6 +51,7 @@ public class PaymentRequestsTests {
     @BeforeClass
     public static void setup() {
         sessionId = Util.getSessionID();
+        testSessions.add(sessionId);
     }
 
     /**
@@ -68,11 +60,7 @@ public class PaymentRequestsTests {
      */
     @AfterClass
     public static void deleteTestData() {
-        for (TestTransaction transaction : testTransactions) {
-            given()
-                    .header("X-session-ID", transaction.getSessionId())
-                    .delete(String.format("api/v1/transactions/%d", transaction.getTransactionId()));
-        }
+        TestData.deleteSessions(testSessions);
     }
 
 
@@ -91,7 +79,7 @@ public class PaymentRequestsTests {
                 .get("api/v1/paymentRequests")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(PAYMENT_REQUEST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(PAYMENT_REQUEST_SCHEMA_PATH))
                 .statusCode(200);
     }
 
@@ -117,12 +105,11 @@ public class PaymentRequestsTests {
      */
     @Test
     public void paymentRequestPostTest() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.MONTH, 2); // Set the date to two months into the future.
+        ZonedDateTime date = TestClock.now().plusMonths(2); // Set the date to two months into the future.
         Util.createTestPaymentRequest(
                 "paymentRequestPostTest",
-                calendar,
-                "100.0",
+                date,
+                100.0,
                 1,
                 sessionId
         );
@@ -136,14 +123,12 @@ public class PaymentRequestsTests {
      */
     @Test
     public void invalidSessionPaymentRequestPostTest() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.MONTH, 2); // Set the date to two months into the future.
+        ZonedDateTime date = TestClock.now().plusMonths(2); // Set the date to two months into the future.
 
         given()
-                .body(String.format(PAYMENT_REQUEST_FORMAT,
-                        "invalidSessionPaymentRequestPostTest",
-                        DATE_FORMAT.format(calendar.getTime()),
-                        "100.00",
+                .body(RequestBodies.paymentRequest("invalidSessionPaymentRequestPostTest",
+                        Timestamps.format(date),
+                        100.00,
                         1))
                 .post("api/v1/paymentRequests")
                 .then()
@@ -171,23 +156,22 @@ public class PaymentRequestsTests {
     @Test
     public void paymentRequestFunctionalityTest() {
         int amount = 31415;
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.MONTH, 2); // Set the date to two months into the future.
+        ZonedDateTime date = TestClock.now().plusMonths(2); // Set the date to two months into the future.
 
         String uniqueSessionId = Util.getSessionID();
 
         // Create a new payment request for a specific amount, to be fulfilled  by a new transaction.
         Util.createTestPaymentRequest("paymentRequestFunctionalityTest",
-                calendar,
-                "" + amount,
+                date,
+                amount,
                 1,
                 uniqueSessionId
         );
 
-        calendar.add(Calendar.MONTH, 1); // Ensure the transaction occurs after the payment request.
+        date = date.plusMonths(1); // Ensure the transaction occurs after the payment request.
 
         // Create a new transaction, fulfilling the payment request.
-        createTransaction(DATE_FORMAT.format(calendar.getTime()),
+        createTransaction(Timestamps.format(date),
                 amount,
                 "paymentRequestFunctionalityTest",
                 uniqueSessionId
@@ -199,7 +183,7 @@ public class PaymentRequestsTests {
                 .get("api/v1/paymentRequests")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(PAYMENT_REQUEST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(PAYMENT_REQUEST_SCHEMA_PATH))
                 .statusCode(200)
                 .extract()
                 .response()
@@ -210,23 +194,22 @@ public class PaymentRequestsTests {
 
     @Test
     public void paymentRequestFunctionalityDifferentAmountTest() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.MONTH, 2); // Set the date to two months into the future.
+        ZonedDateTime date = TestClock.now().plusMonths(2); // Set the date to two months into the future.
 
         String uniqueSessionId = Util.getSessionID();
 
         // Create a new payment request for a specific amount, to be fulfilled  by a new transaction.
         Util.createTestPaymentRequest("paymentRequestFunctionalityDifferentAmountTest",
-                calendar,
-                "123",
+                date,
+                123,
                 1,
                 uniqueSessionId
         );
 
-        calendar.add(Calendar.MONTH, 1); // Ensure the transaction occurs after the payment request.
+        date = date.plusMonths(1); // Ensure the transaction occurs after the payment request.
 
         // Create a new transaction, fulfilling the payment request.
-        createTransaction(DATE_FORMAT.format(calendar.getTime()),
+        createTransaction(Timestamps.format(date),
                 456,
                 "paymentRequestFunctionalityDifferentAmountTest",
                 uniqueSessionId
@@ -238,7 +221,7 @@ public class PaymentRequestsTests {
                 .get("api/v1/paymentRequests")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(PAYMENT_REQUEST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(PAYMENT_REQUEST_SCHEMA_PATH))
                 .statusCode(200)
                 .extract()
                 .response()
@@ -250,23 +233,22 @@ public class PaymentRequestsTests {
     @Test
     public void multiplePaymentRequestFunctionalityTest() {
         int amount = 31415;
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.MONTH, 2); // Set the date to two months into the future.
+        ZonedDateTime date = TestClock.now().plusMonths(2); // Set the date to two months into the future.
 
         String uniqueSessionId = Util.getSessionID();
 
         // Create a new payment request for a specific amount, to be fulfilled  by a new transaction.
         Util.createTestPaymentRequest("multiplePaymentRequestFunctionalityTest",
-                calendar,
-                "" + amount,
+                date,
+                amount,
                 2,
                 uniqueSessionId
         );
 
-        calendar.add(Calendar.MONTH, 1); // Ensure the transaction occurs after the payment request.
+        date = date.plusMonths(1); // Ensure the transaction occurs after the payment request.
 
         // Create a new transaction, going towards the payment request.
-        createTransaction(DATE_FORMAT.format(calendar.getTime()),
+        createTransaction(Timestamps.format(date),
                 amount,
                 "multiplePaymentRequestFunctionalityTest",
                 uniqueSessionId
@@ -278,7 +260,7 @@ public class PaymentRequestsTests {
                 .get("api/v1/paymentRequests")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(PAYMENT_REQUEST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(PAYMENT_REQUEST_SCHEMA_PATH))
                 .statusCode(200)
                 .extract()
                 .response()
@@ -287,7 +269,7 @@ public class PaymentRequestsTests {
                 .getBoolean("[0].filled"));
 
         // Create a new transaction, fulfilling the payment request.
-        createTransaction(DATE_FORMAT.format(calendar.getTime()),
+        createTransaction(Timestamps.format(date),
                 amount,
                 "multiplePaymentRequestFunctionalityTest",
                 uniqueSessionId
@@ -299,7 +281,7 @@ public class PaymentRequestsTests {
                 .get("api/v1/paymentRequests")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(PAYMENT_REQUEST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(PAYMENT_REQUEST_SCHEMA_PATH))
                 .statusCode(200)
                 .extract()
                 .response()
@@ -311,14 +293,14 @@ public class PaymentRequestsTests {
     @Test
     public void expiredPaymentRequestFunctionalityTest() {
         int amount = 31415;
-        Calendar calendar = Calendar.getInstance();
+        ZonedDateTime date = TestClock.now();
 
         String uniqueSessionId = Util.getSessionID();
 
         // Create a new payment request for a specific amount, to be fulfilled  by a new transaction.
         Util.createTestPaymentRequest("expiredPaymentRequestFunctionalityTest",
-                calendar,
-                "" + amount,
+                date,
+                amount,
                 2,
                 uniqueSessionId
         );
@@ -329,7 +311,7 @@ public class PaymentRequestsTests {
                 .get("api/v1/paymentRequests")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(PAYMENT_REQUEST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(PAYMENT_REQUEST_SCHEMA_PATH))
                 .statusCode(200)
                 .extract()
                 .response()
@@ -338,9 +320,9 @@ public class PaymentRequestsTests {
                 .getBoolean("[0].filled"));
 
         // Create a new transaction, matching the amount, but made AFTER the expiry date.
-        calendar.add(Calendar.YEAR, 1);
+        date = date.plusYears(1);
 
-        createTransaction(DATE_FORMAT.format(calendar.getTime()),
+        createTransaction(Timestamps.format(date),
                 amount,
                 "multiplePaymentRequestFunctionalityTest",
                 uniqueSessionId
@@ -352,7 +334,7 @@ public class PaymentRequestsTests {
                 .get("api/v1/paymentRequests")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(PAYMENT_REQUEST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(PAYMENT_REQUEST_SCHEMA_PATH))
                 .statusCode(200)
                 .extract()
                 .response()
@@ -369,31 +351,8 @@ public class PaymentRequestsTests {
      * @param sessionId the session for which to create the Transaction
      */
     private static void createTransaction(String date, int amount, String description, String sessionId) {
-        int transactionId = Util.createTestTransaction(date, amount, "NL39RABO0300065264",
+        Util.createTestTransaction(date, amount, "NL39RABO0300065264",
                 "deposit", description, sessionId);
-        testTransactions.add(new TestTransaction(sessionId, transactionId));
-    }
-
-    /**
-     * Helper class that allows sessions and their respective transactions to be stored together.
-     * Used to remove all transactions for the sessions and clear up the database after running tests.
-     */
-    private static class TestTransaction {
-
-        private String sessionId;
-        private int transactionId;
-
-        private TestTransaction(String sessionId, int transactionId) {
-            this.sessionId = sessionId;
-            this.transactionId = transactionId;
-        }
-
-        private String getSessionId() {
-            return sessionId;
-        }
-
-        private int getTransactionId() {
-            return transactionId;
-        }
+        testSessions.add(sessionId);
     }
 }
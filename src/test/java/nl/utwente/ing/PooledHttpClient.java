@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.response.Response;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+
+/**
+ * Installs a single HTTP client with a bounded pool of keep-alive connections, which is shared by all requests
+ * made through RestAssured.
+ * <p>
+ * By default RestAssured creates a new client, and with it a new connection, for every request. When many requests
+ * are sent concurrently this exhausts the ephemeral ports of the machine running the tests. A connection only returns
+ * to the pool once the body of its response has been read, so the body of every response is read as soon as it
+ * arrives, also when the test never looks at it. The pool can be tuned using the following system properties:
+ * <ul>
+ *     <li>{@code http.maxConnections}: the maximum number of open connections (default 200)</li>
+ *     <li>{@code http.connectTimeout}: the connect timeout in milliseconds (default 5000)</li>
+ *     <li>{@code http.socketTimeout}: the read timeout in milliseconds (default 30000)</li>
+ *     <li>{@code http.poolTimeout}: the time to wait for a free connection in milliseconds (default 30000)</li>
+ *     <li>{@code http.keepAlive}: the time an idle connection is kept open in milliseconds, unless the server
+ *     specifies otherwise (default 30000)</li>
+ * </ul>
+ */
+public final class PooledHttpClient {
+
+    private static final int MAX_CONNECTIONS = Integer.getInteger("http.maxConnections", 200);
+    private static final int CONNECT_TIMEOUT = Integer.getInteger("http.connectTimeout", 5_000);
+    private static final int SOCKET_TIMEOUT = Integer.getInteger("http.socketTimeout", 30_000);
+    private static final long POOL_TIMEOUT = Long.getLong("http.poolTimeout", 30_000L);
+    private static final long KEEP_ALIVE = Long.getLong("http.keepAlive", 30_000L);
+
+    private static boolean installed;
+
+    private PooledHttpClient() {
+    }
+
+    /**
+     * Configures RestAssured to use the pooled client for all subsequent requests. Calling this method more than
+     * once has no further effect.
+     */
+    @SuppressWarnings("deprecation")
+    public static synchronized void install() {
+        if (installed) {
+            return;
+        }
+
+        HttpClientConfig config = RestAssured.config().getHttpClientConfig()
+                .httpClientFactory(PooledHttpClient::createHttpClient)
+                .reuseHttpClientInstance()
+                .setParam(org.apache.http.params.CoreConnectionPNames.CONNECTION_TIMEOUT, CONNECT_TIMEOUT)
+                .setParam(org.apache.http.params.CoreConnectionPNames.SO_TIMEOUT, SOCKET_TIMEOUT)
+                .setParam(org.apache.http.client.params.ClientPNames.CONN_MANAGER_TIMEOUT, POOL_TIMEOUT);
+        RestAssured.config = RestAssured.config().httpClient(config);
+        RestAssured.filters((requestSpec, responseSpec, context) -> {
+            Response response = context.next(requestSpec, responseSpec);
+            response.asByteArray();
+            return response;
+        });
+        installed = true;
+    }
+
+    /**
+     * Creates the HTTP client backed by the connection pool.
+     * All requests are sent to the same host, so a single route may use every connection in the pool.
+     *
+     * @return the newly created client
+     */
+    // RestAssured 3.0.7's HttpClientConfig requires an AbstractHttpClient, so the deprecated client API is used.
+    @SuppressWarnings("deprecation")
+    private static org.apache.http.impl.client.DefaultHttpClient createHttpClient() {
+        org.apache.http.impl.conn.PoolingClientConnectionManager connectionManager =
+                new org.apache.http.impl.conn.PoolingClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+
+        org.apache.http.impl.client.DefaultHttpClient client =
+                new org.apache.http.impl.client.DefaultHttpClient(connectionManager);
+        client.setKeepAliveStrategy((response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : KEEP_ALIVE;
+        });
+        return client;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+/**
+ * Builds the JSON request bodies accepted by the API.
+ * <p>
+ * Every thread writes into its own reusable {@link JsonBodyWriter}, so building a body only allocates the resulting
+ * String. All string values are escaped properly.
+ */
+public final class RequestBodies {
+
+    private static final ThreadLocal<JsonBodyWriter> WRITER = ThreadLocal.withInitial(JsonBodyWriter::new);
+
+    private RequestBodies() {
+    }
+
+    /**
+     * Returns the writer of the current thread, for building bodies not covered by this class.
+     * The writer is shared by all methods of this class, so its contents are only valid until the next call.
+     *
+     * @return the writer of the current thread
+     */
+    public static JsonBodyWriter writer() {
+        return WRITER.get();
+    }
+
+    public static String transaction(String date, double amount, String externalIBAN, String type,
+                                     String description) {
+        JsonBodyWriter writer = writer().begin();
+        transactionFields(writer, date, amount, externalIBAN, type);
+        if (description != null) {
+            writer.field("description", description);
+        }
+        return writer.end().toString();
+    }
+
+    /**
+     * Builds the body of a transaction which is assigned to a category.
+     */
+    public static String transaction(String date, double amount, String externalIBAN, String type,
+                                     String description, int categoryId, String categoryName) {
+        JsonBodyWriter writer = writer().begin();
+        transactionFields(writer, date, amount, externalIBAN, type);
+        if (description != null) {
+            writer.field("description", description);
+        }
+        writer.beginObject("category")
+                .field("id", categoryId)
+                .field("name", categoryName)
+                .endObject();
+        return writer.end().toString();
+    }
+
+    /**
+     * Builds the body used to assign a category to an existing transaction.
+     */
+    public static String categoryAssignment(int categoryId) {
+        return writer().begin()
+                .field("category_id", categoryId)
+                .end()
+                .toString();
+    }
+
+    public static String category(String name) {
+        return writer().begin()
+                .field("name", name)
+                .end()
+                .toString();
+    }
+
+    /**
+     * Builds the body of a category rule. Blank strings act as wildcards matching every transaction.
+     */
+    public static String categoryRule(String description, String iBAN, String type, int categoryId,
+                                      boolean applyOnHistory) {
+        return writer().begin()
+                .field("description", description)
+                .field("iBAN", iBAN)
+                .field("type", type)
+                .field("category_id", categoryId)
+                .field("applyOnHistory", applyOnHistory)
+                .end()
+                .toString();
+    }
+
+    public static String savingGoal(String name, double goal, double savePerMonth, double minBalanceRequired) {
+        return writer().begin()
+                .field("name", name)
+                .field("goal", goal)
+                .field("savePerMonth", savePerMonth)
+                .field("minBalanceRequired", minBalanceRequired)
+                .end()
+                .toString();
+    }
+
+    public static String paymentRequest(String description, String dueDate, double amount, int numberOfRequests) {
+        return writer().begin()
+                .field("description", description)
+                .field("due_date", dueDate)
+                .field("amount", amount)
+                .field("number_of_requests", numberOfRequests)
+                .end()
+                .toString();
+    }
+
+    private static void transactionFields(JsonBodyWriter writer, String date, double amount, String externalIBAN,
+                                          String type) {
+        writer.field("date", date)
+                .field("amount", amount)
+                .field("externalIBAN", externalIBAN)
+                .field("type", type);
+    }
+}
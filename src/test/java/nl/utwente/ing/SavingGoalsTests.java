@@ -30,30 +30,17 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
-
 import static io.restassured.RestAssured.given;
-import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchema;
+import static nl.utwente.ing.JsonSchemas.matchesSchema;
 import static org.junit.Assert.assertEquals;
 
 public class SavingGoalsTests {
 
-    private static final Path SAVING_GOAL_SCHEMA_PATH = Paths.get("src/test/java/nl/utwente/ing/schemas/savinggoals/savinggoal.json");
-    private static final Path SAVING_GOAL_LIST_SCHEMA_PATH = Paths.get("src/test/java/nl/utwente/ing/schemas/savinggoals/savinggoal-list.json");
-    private static final String TEST_SAVING_GOAL_FORMAT = "{" +
-            "\"name\":\"Test Goal\"," +
-            "\"goal\": %d," +
-            "\"savePerMonth\": %d," +
-            "\"minBalanceRequired\": %d" +
-            "}";
+    static final String SAVING_GOAL_SCHEMA_PATH = "savinggoals/savinggoal.json";
+    private static final String SAVING_GOAL_LIST_SCHEMA_PATH = "savinggoals/savinggoal-list.json";
+    private static final String TEST_SAVING_GOAL_NAME = "Test Goal";
 
     private static String sessionId;
-    // Lists containing all saving goals and transactions used for testing, which should be deleted after running all tests.
-    private static List<Integer> testSavingGoals = new ArrayList<>();
-    private static List<Integer> testTransactions = new ArrayList<>();
 
     /**
      * Sets up the fields which are shared between all tests ensuring that all tests can depend on these
@@ -70,20 +57,7 @@ public class SavingGoalsTests {
      */
     @AfterClass
     public static void deleteTestData() {
-        for (Integer savingGoalId : testSavingGoals) {
-            given()
-                    .header("X-session-ID", sessionId)
-                    .delete(String.format("api/v1/savingGoals/%d",savingGoalId));
-        }
-
-        for (Integer transactionId : testTransactions) {
-            given()
-                    .header("X-session-ID", sessionId)
-                    .delete(String.format("api/v1/transactions/%d", transactionId));
-        }
-
-        testSavingGoals.clear();
-        testTransactions.clear();
+        TestData.deleteSession(sessionId);
     }
 
     /**
@@ -98,7 +72,7 @@ public class SavingGoalsTests {
                 .get("api/v1/savingGoals")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(SAVING_GOAL_LIST_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(SAVING_GOAL_LIST_SCHEMA_PATH))
                 .statusCode(200);
     }
 
@@ -136,7 +110,7 @@ public class SavingGoalsTests {
     @Test
     public void invalidSessionSavingGoalPostTest() {
         given()
-                .body(String.format(TEST_SAVING_GOAL_FORMAT, 5000, 100, 0))
+                .body(RequestBodies.savingGoal(TEST_SAVING_GOAL_NAME, 5000, 100, 0))
                 .post("api/v1/savingGoals")
                 .then()
                 .assertThat()
@@ -171,11 +145,11 @@ public class SavingGoalsTests {
         // Delete all current goals to ensure there are no other goals influencing the outcome.
         deleteTestData();
         // Ensure that the saving goal exists.
-        savingGoalPostTest();
+        int savingGoalId = createSavingGoal(5000, 100, 0, sessionId);
 
         given()
                 .header("X-session-ID", sessionId)
-                .delete(String.format("api/v1/savingGoals/%d", testSavingGoals.get(0)))
+                .delete(String.format("api/v1/savingGoals/%d", savingGoalId))
                 .then()
                 .assertThat()
                 .statusCode(204);
@@ -201,15 +175,15 @@ public class SavingGoalsTests {
         deleteTestData();
 
         // Deposit €1200 on May the 28th.
-        testTransactions.add(Util.createTestTransaction("2018-05-28T00:00:00.000Z", 1200,
-                "NL39RABO0300065264", "deposit", "test", sessionId));
+        Util.createTestTransaction("2018-05-28T00:00:00.000Z", 1200,
+                "NL39RABO0300065264", "deposit", "test", sessionId);
         // Add saving goal for €250 each month.
         createSavingGoal(10000, 250, 0, sessionId);
         // Add saving goal for €500 each month IF balance > €1000.
         createSavingGoal(10000, 500, 1000, sessionId);
         // Withdraw €100 on June the 2nd.
-        testTransactions.add(Util.createTestTransaction("2018-06-02T00:00:00.000Z", 100,
-                "NL39RABO0300065264", "withdrawal", "test", sessionId));
+        Util.createTestTransaction("2018-06-02T00:00:00.000Z", 100,
+                "NL39RABO0300065264", "withdrawal", "test", sessionId);
         // Check balance, should now be €850 after processing saving goals.
         JsonPath path = given()
                 .header("X-session-ID", sessionId)
@@ -236,17 +210,17 @@ public class SavingGoalsTests {
         deleteTestData();
 
         // Deposit €1200 on August the 28th.
-        testTransactions.add(Util.createTestTransaction("2018-08-28T00:00:00.000Z", 1200,
-                "NL39RABO0300065264", "deposit", "test", sessionId));
+        Util.createTestTransaction("2018-08-28T00:00:00.000Z", 1200,
+                "NL39RABO0300065264", "deposit", "test", sessionId);
         // Add saving goal for €250 each month and a goal of €250.
         // This goal will be completed after one month.
         createSavingGoal(250, 250, 0, sessionId);
         // Withdraw €100 on September the 2nd.
-        testTransactions.add(Util.createTestTransaction("2018-09-02T00:00:00.000Z", 100,
-                "NL39RABO0300065264", "withdrawal", "test", sessionId));
+        Util.createTestTransaction("2018-09-02T00:00:00.000Z", 100,
+                "NL39RABO0300065264", "withdrawal", "test", sessionId);
         // Withdraw another €100 on October the 3rd.
-        testTransactions.add(Util.createTestTransaction("2018-10-03T00:00:00.000Z", 100,
-                "NL39RABO0300065264", "withdrawal", "test", sessionId));
+        Util.createTestTransaction("2018-10-03T00:00:00.000Z", 100,
+                "NL39RABO0300065264", "withdrawal", "test", sessionId);
         // The savings goal should only have been applied once, check whether balance confirms this.
         JsonPath path = given()
                 .header("X-session-ID", sessionId)
@@ -268,20 +242,9 @@ public class SavingGoalsTests {
      * @param savePerMonth the amount of money put aside per month
      * @param minBalanceRequired the minimum balance required for the savings to be put aside
      * @param sessionId the session ID for this saving goal
+     * @return the ID of the created saving goal
      */
-    private static void createSavingGoal(int goal, int savePerMonth, int minBalanceRequired, String sessionId) {
-        testSavingGoals.add(given()
-                .header("X-session-ID", sessionId)
-                .body(String.format(TEST_SAVING_GOAL_FORMAT, goal, savePerMonth, minBalanceRequired))
-                .post("api/v1/savingGoals")
-                .then()
-                .assertThat()
-                .body(matchesJsonSchema(SAVING_GOAL_SCHEMA_PATH.toAbsolutePath().toUri()))
-                .statusCode(201)
-                .extract()
-                .response()
-                .getBody()
-                .jsonPath()
-                .getInt("id"));
+    private static int createSavingGoal(int goal, int savePerMonth, int minBalanceRequired, String sessionId) {
+        return Util.createTestSavingGoal(TEST_SAVING_GOAL_NAME, goal, savePerMonth, minBalanceRequired, sessionId);
     }
 }
@@ -24,8 +24,13 @@
  */
 package nl.utwente.ing;
 
+import nl.utwente.ing.embedded.EmbeddedApi;
 import org.junit.Test;
 
+import static io.restassured.RestAssured.given;
+import static org.junit.Assume.assumeTrue;
+
+@ParallelSuite.ConcurrentMethods
 public class SessionTests {
 
     /**
@@ -37,4 +42,56 @@ public class SessionTests {
     public void validSessionBodyTest() {
         Util.getSessionID();
     }
+
+    /**
+     * Performs a POST request on the sessions/fork endpoint, after which both sessions are changed.
+     * <p>
+     * This test checks whether the forked session starts with the resources of its source, and whether changes to
+     * either session are invisible to the other. Only the embedded API supports forking sessions.
+     */
+    @Test
+    public void forkedSessionTest() {
+        assumeTrue(EmbeddedApi.getPort() != -1);
+        String sessionId = Util.getSessionID();
+        String forkId = null;
+        try {
+            int transactionId = Util.createTestTransaction("2018-05-28T00:00:00.000Z", 100,
+                    "NL39RABO0300065264", "deposit", "test", sessionId);
+            forkId = Util.forkSession(sessionId);
+
+            // The fork starts with the transaction, but deleting it only affects the fork.
+            given()
+                    .header("X-session-ID", forkId)
+                    .get(String.format("api/v1/transactions/%d", transactionId))
+                    .then()
+                    .assertThat()
+                    .statusCode(200);
+            given()
+                    .header("X-session-ID", forkId)
+                    .delete(String.format("api/v1/transactions/%d", transactionId))
+                    .then()
+                    .assertThat()
+                    .statusCode(204);
+            given()
+                    .header("X-session-ID", sessionId)
+                    .get(String.format("api/v1/transactions/%d", transactionId))
+                    .then()
+                    .assertThat()
+                    .statusCode(200);
+
+            // Resources created in the source after forking are not part of the fork.
+            int categoryId = Util.createTestCategory("Groceries", sessionId);
+            given()
+                    .header("X-session-ID", forkId)
+                    .get(String.format("api/v1/categories/%d", categoryId))
+                    .then()
+                    .assertThat()
+                    .statusCode(404);
+        } finally {
+            TestData.deleteSession(sessionId);
+            if (forkId != null) {
+                TestData.deleteSession(forkId);
+            }
+        }
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * The clock used by the tests to determine the current time, for instance to create transactions a number of months
+ * in the past or payment requests which are due in the future.
+ * <p>
+ * The system clock is used by default. The clock can be fixed to a point in time using the {@code test.clock} system
+ * property, e.g. {@code -Dtest.clock=2018-06-01T12:00:00Z}, which makes all time-relative test data reproducible.
+ */
+public final class TestClock {
+
+    private static volatile Clock clock = createClock(System.getProperty("test.clock"));
+
+    private TestClock() {
+    }
+
+    /**
+     * Returns the current time of the test clock in UTC.
+     *
+     * @return the current time
+     */
+    public static ZonedDateTime now() {
+        return ZonedDateTime.now(clock);
+    }
+
+    public static Clock get() {
+        return clock;
+    }
+
+    /**
+     * Replaces the clock used by the tests, e.g. by a fixed clock for a benchmark.
+     *
+     * @param newClock the clock to use from now on
+     */
+    public static void set(Clock newClock) {
+        clock = newClock;
+    }
+
+    private static Clock createClock(String fixedTime) {
+        if (fixedTime == null || fixedTime.isEmpty()) {
+            return Clock.systemUTC();
+        }
+        return Clock.fixed(Instant.parse(fixedTime), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Registry of all test data created through the helpers in {@link Util}, grouped by session.
+ * <p>
+ * Test classes delete the data of the sessions they used after running their tests, instead of keeping track of
+ * every created resource themselves. Deletion requests are sent concurrently, using the number of threads given by
+ * the {@code cleanup.threads} system property (16 by default).
+ */
+public final class TestData {
+
+    // The order in which resources are deleted, so that no resource is deleted while others still refer to it.
+    private static final Util.Resource[] DELETION_ORDER = {
+            Util.Resource.TRANSACTIONS,
+            Util.Resource.CATEGORY_RULES,
+            Util.Resource.PAYMENT_REQUESTS,
+            Util.Resource.SAVING_GOALS,
+            Util.Resource.CATEGORIES
+    };
+
+    private static final ConcurrentMap<String, Queue<Entry>> SESSIONS = new ConcurrentHashMap<>();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Integer.getInteger("cleanup.threads", 16), runnable -> {
+                Thread thread = new Thread(runnable, "test-data-cleanup");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static volatile boolean recording = true;
+
+    private TestData() {
+    }
+
+    /**
+     * Records a resource which has been created for a session, so it is deleted when the session is cleaned up.
+     *
+     * @param sessionId the session the resource belongs to
+     * @param resource the type of the resource
+     * @param id the ID of the resource
+     */
+    public static void register(String sessionId, Util.Resource resource, int id) {
+        if (!recording) {
+            return;
+        }
+        SESSIONS.computeIfAbsent(sessionId, key -> new ConcurrentLinkedQueue<>()).add(new Entry(resource, id));
+    }
+
+    /**
+     * Enables or disables the recording of created resources. Load tests create far more resources than can be
+     * deleted one by one, so they disable recording to keep the registry from growing without bound.
+     *
+     * @param enabled whether resources registered from now on are recorded
+     */
+    public static void setRecording(boolean enabled) {
+        recording = enabled;
+    }
+
+    /**
+     * Deletes all recorded resources of a session and waits for the deletion to complete.
+     *
+     * @param sessionId the session to clean up
+     */
+    public static void deleteSession(String sessionId) {
+        deleteSessions(Collections.singleton(sessionId));
+    }
+
+    /**
+     * Deletes all recorded resources of the given sessions and waits for the deletion to complete.
+     *
+     * @param sessionIds the sessions to clean up
+     */
+    public static void deleteSessions(Collection<String> sessionIds) {
+        List<Session> sessions = new ArrayList<>();
+        for (String sessionId : sessionIds) {
+            Queue<Entry> entries = SESSIONS.remove(sessionId);
+            if (entries != null) {
+                sessions.add(new Session(sessionId, entries));
+            }
+        }
+
+        for (Util.Resource resource : DELETION_ORDER) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Session session : sessions) {
+                for (Entry entry : session.entries) {
+                    if (entry.resource == resource) {
+                        futures.add(EXECUTOR.submit(() -> delete(session.sessionId, entry)));
+                    }
+                }
+            }
+            await(futures);
+        }
+    }
+
+    /**
+     * Deletes all recorded resources of every session.
+     */
+    public static void deleteAll() {
+        deleteSessions(new ArrayList<>(SESSIONS.keySet()));
+    }
+
+    private static void delete(String sessionId, Entry entry) {
+        given()
+                .header("X-session-ID", sessionId)
+                .delete(String.format("%s/%d", entry.resource.getPath(), entry.id));
+    }
+
+    private static void await(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not delete test data", e.getCause());
+        }
+    }
+
+    /**
+     * A resource created for a session.
+     */
+    private static class Entry {
+
+        private final Util.Resource resource;
+        private final int id;
+
+        private Entry(Util.Resource resource, int id) {
+            this.resource = resource;
+            this.id = id;
+        }
+    }
+
+    /**
+     * The resources of a session which is being cleaned up.
+     */
+    private static class Session {
+
+        private final String sessionId;
+        private final Queue<Entry> entries;
+
+        private Session(String sessionId, Queue<Entry> entries) {
+            this.sessionId = sessionId;
+            this.entries = entries;
+        }
+    }
+}
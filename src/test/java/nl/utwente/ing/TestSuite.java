@@ -24,17 +24,39 @@
  */
 package nl.utwente.ing;
 
+import nl.utwente.ing.embedded.EmbeddedApi;
 import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
-@RunWith(Suite.class)
+/**
+ * Runs all test classes against the API. See {@link ParallelSuite} for running the classes concurrently, and
+ * {@link EmbeddedApi} for running them against an external server instead of the embedded API.
+ */
+@RunWith(ParallelSuite.class)
 @Suite.SuiteClasses({SessionTests.class, CategoryTests.class, TransactionTests.class, CategoryRuleTests.class,
         BalanceHistoryTests.class, SavingGoalsTests.class, PaymentRequestsTests.class})
 public class TestSuite {
 
+    /**
+     * Starts the embedded API, compiles all JSON schemas once and installs the pooled HTTP client and the request
+     * filters before any test runs.
+     */
+    @BeforeClass
+    public static void setUp() {
+        EmbeddedApi.install();
+        JsonSchemas.load();
+        PooledHttpClient.install();
+        LatencyBudgetRule.install();
+        TrafficCapture.install();
+    }
+
+    /**
+     * Deletes all test data which has not been deleted by the test classes themselves.
+     */
     @AfterClass
     public static void cleanUp() {
-        Util.deleteTestCategory(TransactionTests.testCategoryId, TransactionTests.sessionId);
+        TestData.deleteAll();
     }
 }
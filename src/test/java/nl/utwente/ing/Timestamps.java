@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Thread-safe codec for the ISO-8601 timestamps used by the API, e.g. {@code 2018-05-28T00:00:00.000Z}.
+ * <p>
+ * Timestamps are always written in UTC with millisecond precision. Every thread caches the date and hour part of the
+ * last timestamp it has written, so consecutive timestamps within the same hour only need their minutes, seconds and
+ * milliseconds to be written.
+ */
+public final class Timestamps {
+
+    private static final DateTimeFormatter FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+    // Timestamps without an offset are interpreted as UTC.
+    private static final DateTimeFormatter PARSER = DateTimeFormatter.ISO_DATE_TIME.withZone(ZoneOffset.UTC);
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    // The length of the cached prefix, "yyyy-MM-ddTHH:".
+    private static final int PREFIX_LENGTH = 14;
+    private static final int TIMESTAMP_LENGTH = 24;
+    // Timestamps outside of this range do not have a four digit year and are written using the formatter.
+    private static final long MIN_MILLIS = Instant.parse("0001-01-01T00:00:00Z").toEpochMilli();
+    private static final long MAX_MILLIS = Instant.parse("9999-12-31T23:59:59.999Z").toEpochMilli();
+
+    private static final ThreadLocal<PrefixCache> CACHE = ThreadLocal.withInitial(PrefixCache::new);
+
+    private Timestamps() {
+    }
+
+    public static String format(ZonedDateTime dateTime) {
+        return format(dateTime.toInstant().toEpochMilli());
+    }
+
+    public static String format(Instant instant) {
+        return format(instant.toEpochMilli());
+    }
+
+    /**
+     * Formats the given point in time.
+     *
+     * @param epochMillis the number of milliseconds since the epoch
+     * @return the ISO-8601 representation in UTC
+     */
+    public static String format(long epochMillis) {
+        if (epochMillis < MIN_MILLIS || epochMillis > MAX_MILLIS) {
+            return FORMATTER.format(Instant.ofEpochMilli(epochMillis));
+        }
+
+        PrefixCache cache = CACHE.get();
+        long hour = Math.floorDiv(epochMillis, MILLIS_PER_HOUR);
+        if (hour != cache.hour) {
+            FORMATTER.format(Instant.ofEpochMilli(hour * MILLIS_PER_HOUR)).getChars(0, PREFIX_LENGTH, cache.chars, 0);
+            cache.hour = hour;
+        }
+
+        int millisOfHour = (int) Math.floorMod(epochMillis, MILLIS_PER_HOUR);
+        char[] chars = cache.chars;
+        writeDigits(chars, PREFIX_LENGTH, millisOfHour / 60_000, 2);
+        chars[16] = ':';
+        writeDigits(chars, 17, millisOfHour / 1000 % 60, 2);
+        chars[19] = '.';
+        writeDigits(chars, 20, millisOfHour % 1000, 3);
+        chars[23] = 'Z';
+        return new String(chars, 0, TIMESTAMP_LENGTH);
+    }
+
+    /**
+     * Parses a timestamp as returned by the API.
+     *
+     * @param timestamp the ISO-8601 representation of a point in time
+     * @return the number of milliseconds since the epoch
+     */
+    public static long parse(CharSequence timestamp) {
+        return Instant.from(PARSER.parse(timestamp)).toEpochMilli();
+    }
+
+    private static void writeDigits(char[] chars, int offset, int value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * The characters of the last timestamp written by a thread, of which the prefix belongs to the cached hour.
+     */
+    private static class PrefixCache {
+
+        private long hour = Long.MIN_VALUE;
+        private final char[] chars = new char[TIMESTAMP_LENGTH];
+    }
+}
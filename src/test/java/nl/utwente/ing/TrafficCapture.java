@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every request sent through RestAssured to a {@link TrafficLog}, when the {@code capture.file} system
+ * property is set to the file to write the log to.
+ * <p>
+ * The log can be replayed against another instance of the API using the replayer of the load module, which keeps the
+ * timing between the requests. Entries are written in the order in which the requests were sent, rather than the
+ * order in which they were answered, so that a request creating a resource precedes the requests referring to it.
+ * The log is closed when the JVM shuts down.
+ */
+public final class TrafficCapture implements Filter {
+
+    private static final String CAPTURE_FILE = System.getProperty("capture.file");
+
+    private static boolean installed;
+
+    private final TrafficLog.Writer writer;
+    private final long startNanos = System.nanoTime();
+
+    // The entries of answered requests which wait for earlier requests, by sequence number. Failed requests are null.
+    private final Map<Long, TrafficLog.Entry> pending = new HashMap<>();
+    private long nextSequence;
+    private long nextWritten;
+
+    private TrafficCapture(TrafficLog.Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Adds the capture filter to the default filters of RestAssured, if the {@code capture.file} system property is
+     * set. Calling this method more than once has no further effect. The filters of RestAssured are not thread-safe,
+     * so this method should be called before requests are sent concurrently.
+     */
+    public static synchronized void install() {
+        if (installed || CAPTURE_FILE == null) {
+            return;
+        }
+
+        TrafficLog.Writer writer;
+        try {
+            writer = TrafficLog.write(Paths.get(CAPTURE_FILE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create traffic log " + CAPTURE_FILE, e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.printf("Could not close traffic log %s: %s%n", CAPTURE_FILE, e);
+            }
+        }, "traffic-capture"));
+
+        RestAssured.filters(new TrafficCapture(writer));
+        installed = true;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext context) {
+        long sequence;
+        long start;
+        synchronized (pending) {
+            sequence = nextSequence++;
+            start = System.nanoTime();
+        }
+
+        TrafficLog.Entry entry = null;
+        try {
+            Response response = context.next(requestSpec, responseSpec);
+            long latency = System.nanoTime() - start;
+
+            List<String[]> headers = new ArrayList<>();
+            for (Header header : requestSpec.getHeaders()) {
+                headers.add(new String[] {header.getName(), header.getValue()});
+            }
+            entry = new TrafficLog.Entry(TimeUnit.NANOSECONDS.toMicros(start - startNanos), requestSpec.getMethod(),
+                    pathOf(requestSpec.getURI()), headers, bodyOf(requestSpec), response.getStatusCode(),
+                    TimeUnit.NANOSECONDS.toMicros(latency), createdId(requestSpec, response));
+            return response;
+        } finally {
+            append(sequence, entry);
+        }
+    }
+
+    /**
+     * Writes the entry of a request once the entries of all requests sent before it have been written.
+     *
+     * @param sequence the sequence number reserved when the request was sent
+     * @param entry the entry of the request, or {@code null} if it did not receive a response
+     */
+    private void append(long sequence, TrafficLog.Entry entry) {
+        synchronized (pending) {
+            pending.put(sequence, entry);
+            try {
+                while (pending.containsKey(nextWritten)) {
+                    TrafficLog.Entry next = pending.remove(nextWritten++);
+                    if (next != null) {
+                        writer.append(next);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to traffic log " + CAPTURE_FILE, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the path and query of a URI, so the request can be sent to another host.
+     */
+    private static String pathOf(String uri) {
+        URI parsed = URI.create(uri);
+        String path = parsed.getRawPath();
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return parsed.getRawQuery() == null ? path : path + "?" + parsed.getRawQuery();
+    }
+
+    private static byte[] bodyOf(FilterableRequestSpecification requestSpec) {
+        Object body = requestSpec.getBody();
+        if (body == null) {
+            return new byte[0];
+        } else if (body instanceof byte[]) {
+            return (byte[]) body;
+        }
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the ID of the session or resource created by a request, so the replayer can substitute the IDs it
+     * receives itself in later requests.
+     */
+    private static String createdId(FilterableRequestSpecification requestSpec, Response response) {
+        if (!"POST".equals(requestSpec.getMethod()) || response.getStatusCode() != 201) {
+            return "";
+        }
+        try {
+            Object id = response.getBody().jsonPath().get("id");
+            return id == null ? "" : id.toString();
+        } catch (RuntimeException e) {
+            // The response does not contain a JSON object with an ID.
+            return "";
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary log of captured HTTP traffic, written by {@link TrafficCapture} and read by the replayer of the load module.
+ * <p>
+ * A log starts with the magic number {@code 0x54524146} ("TRAF") and a version byte, followed by one entry per
+ * request. Integers are written as unsigned variable-length integers (7 bits per byte, least significant group first)
+ * and strings as a length followed by their UTF-8 bytes. An entry consists of:
+ * <ol>
+ *     <li>the time at which the request was sent, in microseconds since the start of the capture</li>
+ *     <li>the method and the path, including the query string</li>
+ *     <li>the number of headers, followed by the name and value of every header</li>
+ *     <li>the length of the body, followed by the body</li>
+ *     <li>the status code of the response and the latency in microseconds</li>
+ *     <li>the ID returned when the request created a resource or session, or an empty string</li>
+ * </ol>
+ * Logs of which the name ends with {@code .gz} are compressed.
+ */
+public final class TrafficLog {
+
+    private static final int MAGIC = 0x54524146;
+    private static final int VERSION = 1;
+
+    private TrafficLog() {
+    }
+
+    /**
+     * Opens a log for writing, replacing any existing file.
+     *
+     * @param file the file to write the log to
+     * @return the writer
+     * @throws IOException if the file could not be opened
+     */
+    public static Writer write(Path file) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        if (file.toString().endsWith(".gz")) {
+            out = new GZIPOutputStream(out, 1 << 16);
+        }
+        return new Writer(new DataOutputStream(new BufferedOutputStream(out, 1 << 16)));
+    }
+
+    /**
+     * Opens a log for reading.
+     *
+     * @param file the file containing the log
+     * @return the reader
+     * @throws IOException if the file could not be opened or does not contain a log
+     */
+    public static Reader read(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (file.toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        return new Reader(new DataInputStream(new BufferedInputStream(in, 1 << 16)));
+    }
+
+    /**
+     * A captured request, together with the response it received.
+     */
+    public static final class Entry {
+
+        private final long offsetMicros;
+        private final String method;
+        private final String path;
+        private final List<String[]> headers;
+        private final byte[] body;
+        private final int status;
+        private final long latencyMicros;
+        private final String createdId;
+
+        /**
+         * Creates an entry.
+         *
+         * @param offsetMicros the time at which the request was sent, relative to the start of the capture
+         * @param method the method of the request
+         * @param path the path of the request, including the query string
+         * @param headers the headers of the request, as pairs of a name and a value
+         * @param body the body of the request, which is empty if it has none
+         * @param status the status code of the response
+         * @param latencyMicros the time until the response was received
+         * @param createdId the ID of the created resource or session, or an empty string
+         */
+        public Entry(long offsetMicros, String method, String path, List<String[]> headers, byte[] body, int status,
+                     long latencyMicros, String createdId) {
+            this.offsetMicros = offsetMicros;
+            this.method = method;
+            this.path = path;
+            this.headers = Collections.unmodifiableList(headers);
+            this.body = body;
+            this.status = status;
+            this.latencyMicros = latencyMicros;
+            this.createdId = createdId;
+        }
+
+        public long getOffsetMicros() {
+            return offsetMicros;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<String[]> getHeaders() {
+            return headers;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public long getLatencyMicros() {
+            return latencyMicros;
+        }
+
+        public String getCreatedId() {
+            return createdId;
+        }
+    }
+
+    /**
+     * Appends entries to a log. Entries may be appended from multiple threads.
+     */
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+
+        private Writer(DataOutputStream out) throws IOException {
+            this.out = out;
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        public synchronized void append(Entry entry) throws IOException {
+            writeNumber(entry.offsetMicros);
+            writeString(entry.method);
+            writeString(entry.path);
+            writeNumber(entry.headers.size());
+            for (String[] header : entry.headers) {
+                writeString(header[0]);
+                writeString(header[1]);
+            }
+            writeNumber(entry.body.length);
+            out.write(entry.body);
+            writeNumber(entry.status);
+            writeNumber(entry.latencyMicros);
+            writeString(entry.createdId);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+
+        private void writeNumber(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeNumber(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads the entries of a log in the order in which they were appended.
+     */
+    public static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+
+        private Reader(DataInputStream in) throws IOException {
+            this.in = in;
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a traffic log");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported traffic log version: %d", version));
+            }
+        }
+
+        /**
+         * Reads the next entry.
+         *
+         * @return the next entry, or {@code null} at the end of the log
+         * @throws IOException if the log could not be read
+         */
+        public Entry next() throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+
+            long offsetMicros = readNumber(first);
+            String method = readString();
+            String path = readString();
+            int headerCount = (int) readNumber(in.readUnsignedByte());
+            List<String[]> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                headers.add(new String[] {readString(), readString()});
+            }
+            byte[] body = new byte[(int) readNumber(in.readUnsignedByte())];
+            in.readFully(body);
+            int status = (int) readNumber(in.readUnsignedByte());
+            long latencyMicros = readNumber(in.readUnsignedByte());
+            return new Entry(offsetMicros, method, path, headers, body, status, latencyMicros, readString());
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        /**
+         * Reads a variable-length number of which the first byte has already been read.
+         */
+        private long readNumber(int first) throws IOException {
+            long value = first & 0x7F;
+            int shift = 7;
+            int current = first;
+            while ((current & 0x80) != 0) {
+                current = in.read();
+                if (current < 0) {
+                    throw new EOFException("Truncated traffic log");
+                }
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            }
+            return value;
+        }
+
+        private String readString() throws IOException {
+            byte[] bytes = new byte[(int) readNumber(in.readUnsignedByte())];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
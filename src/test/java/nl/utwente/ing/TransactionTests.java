@@ -26,15 +26,13 @@ package nl.utwente.ing;
 
 import io.restassured.http.ContentType;
 import org.junit.After;
+import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.net.URI;
-import java.nio.file.Paths;
-
 import static io.restassured.RestAssured.get;
 import static io.restassured.RestAssured.given;
-import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchema;
+import static nl.utwente.ing.JsonSchemas.matchesSchema;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertEquals;
@@ -42,10 +40,8 @@ import static org.junit.Assert.assertThat;
 
 public class TransactionTests {
 
-    private static final URI TRANSACTION_LIST_SCHEMA_PATH = Paths.get("src/test/java/nl/utwente/ing/schemas" +
-                    "/transactions/transaction-list.json").toAbsolutePath().toUri();
-    private static final URI TRANSACTION_SCHEMA_PATH = Paths.get("src/test/java/nl/utwente/ing/schemas" +
-                    "/transactions/transaction.json").toAbsolutePath().toUri();
+    private static final String TRANSACTION_LIST_SCHEMA_PATH = "transactions/transaction-list.json";
+    private static final String TRANSACTION_SCHEMA_PATH = "transactions/transaction.json";
 
     static String sessionId;
 
@@ -57,18 +53,8 @@ public class TransactionTests {
     private static final String TEST_CATEGORY_NAME = "TransactionTests Test Category";
     private static final String TEST_DESCRIPTION_NAME = "TransactionTests Test Description";
 
-    private static final String TEST_TRANSACTION_INPUT_FORMAT =
-                    "{" +
-                    "\"date\": \"1889-04-20T19:45:04.030Z\", " +
-                    "\"amount\": 213.12, " +
-                    "\"externalIBAN\": \"string\", " +
-                    "\"type\": \"deposit\", " +
-                    "\"category\": {" +
-                    "    \"id\": %d," +
-                    "    \"name\": \"" + TEST_CATEGORY_NAME + "\""+
-                    "  }" +
-                    "}";
-    private static final String TEST_CATEGORY_INPUT_FORMAT = "{\"category_id\": %d}";
+    private static final String TEST_TRANSACTION_DATE = "1889-04-20T19:45:04.030Z";
+    private static final double TEST_TRANSACTION_AMOUNT = 213.12;
 
     private static final String TEST_TRANSACTION_INVALID =
             "{" +
@@ -125,6 +111,19 @@ public class TransactionTests {
         }
     }
 
+    /**
+     * Forgets the shared session, category and transactions after all tests have run. The test suite deletes all
+     * recorded test data afterwards, so a later run of this class in the same JVM has to create them again.
+     */
+    @AfterClass
+    public static void resetFixtures() {
+        sessionId = null;
+        testCategoryId = null;
+        testTransactionId = null;
+        testDescriptionTransactionId = null;
+        clutterTransactionId = null;
+    }
+
     /*
      *  Tests related to GET requests on the /transactions API endpoint.
      *  API Documentation: https://app.swaggerhub.com/apis/djhuistra/INGHonours/1.0.1#/transactions
@@ -142,7 +141,7 @@ public class TransactionTests {
                 .get("api/v1/transactions")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(TRANSACTION_LIST_SCHEMA_PATH))
+                .body(matchesSchema(TRANSACTION_LIST_SCHEMA_PATH))
                 .contentType(ContentType.JSON)
                 .statusCode(200)
                 .extract()
@@ -163,16 +162,8 @@ public class TransactionTests {
         // Insert test transaction 1.
         validSessionValidTransactionPostTest();
 
-        String clutterTransaction = String.format("{" +
-                "\"date\": \"1889-04-20T19:45:04.030Z\", " +
-                "\"amount\": 23.53, " +
-                "\"externalIBAN\": \"something\", " +
-                "\"type\": \"deposit\", " +
-                "\"category\": {" +
-                "    \"id\": %d," +
-                "    \"name\": \"" + TEST_CATEGORY_NAME + "\"" +
-                "  }" +
-                "}", testCategoryId);
+        String clutterTransaction = RequestBodies.transaction(TEST_TRANSACTION_DATE, 23.53, "something", "deposit",
+                null, testCategoryId, TEST_CATEGORY_NAME);
 
         // Insert test transaction 2.
         clutterTransactionId = given()
@@ -195,7 +186,7 @@ public class TransactionTests {
                 .get("api/v1/transactions")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(TRANSACTION_LIST_SCHEMA_PATH))
+                .body(matchesSchema(TRANSACTION_LIST_SCHEMA_PATH))
                 .contentType(ContentType.JSON)
                 .statusCode(200)
                 .extract()
@@ -224,7 +215,7 @@ public class TransactionTests {
                 .then()
                 .assertThat()
                 .statusCode(200)
-                .body(matchesJsonSchema(TRANSACTION_LIST_SCHEMA_PATH))
+                .body(matchesSchema(TRANSACTION_LIST_SCHEMA_PATH))
                 .contentType(ContentType.JSON)
                 .extract()
                 .jsonPath()
@@ -253,7 +244,7 @@ public class TransactionTests {
                 .then()
                 .assertThat()
                 .statusCode(200)
-                .body(matchesJsonSchema(TRANSACTION_LIST_SCHEMA_PATH))
+                .body(matchesSchema(TRANSACTION_LIST_SCHEMA_PATH))
                 .contentType(ContentType.JSON)
                 .extract()
                 .jsonPath()
@@ -297,7 +288,7 @@ public class TransactionTests {
                 .get(String.format("api/v1/transactions/%d", testTransactionId))
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(TRANSACTION_SCHEMA_PATH))
+                .body(matchesSchema(TRANSACTION_SCHEMA_PATH))
                 .contentType(ContentType.JSON)
                 .statusCode(200)
                 .extract()
@@ -325,7 +316,7 @@ public class TransactionTests {
                 .get(String.format("api/v1/transactions/%d", testDescriptionTransactionId))
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(TRANSACTION_SCHEMA_PATH))
+                .body(matchesSchema(TRANSACTION_SCHEMA_PATH))
                 .contentType(ContentType.JSON)
                 .statusCode(200)
                 .extract()
@@ -399,7 +390,7 @@ public class TransactionTests {
     public void validSessionValidTransactionPostTest() {
         testTransactionId = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format(TEST_TRANSACTION_INPUT_FORMAT, testCategoryId))
+                .body(testTransactionBody(null))
                 .post("api/v1/transactions")
                 .then()
                 .assertThat()
@@ -420,17 +411,7 @@ public class TransactionTests {
     public void validSessionValidDescriptionTransactionPostTest() {
         testDescriptionTransactionId = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format("{" +
-                        "\"date\": \"1889-04-20T19:45:04.030Z\", " +
-                        "\"amount\": 213.12, " +
-                        "\"description\": \"" + TEST_DESCRIPTION_NAME + "\", "+
-                        "\"externalIBAN\": \"string\", " +
-                        "\"type\": \"deposit\", " +
-                        "\"category\": {" +
-                        "    \"id\": %d," +
-                        "    \"name\": \"" + TEST_CATEGORY_NAME + "\""+
-                        "  }" +
-                        "}", testCategoryId))
+                .body(testTransactionBody(TEST_DESCRIPTION_NAME))
                 .post("api/v1/transactions")
                 .then()
                 .assertThat()
@@ -450,7 +431,7 @@ public class TransactionTests {
     @Test
     public void invalidSessionValidTransactionPostTest() {
         given()
-                .body(String.format(TEST_TRANSACTION_INPUT_FORMAT, testCategoryId))
+                .body(testTransactionBody(null))
                 .post("api/v1/transactions")
                 .then()
                 .assertThat()
@@ -503,7 +484,7 @@ public class TransactionTests {
                 .assertThat()
                 .statusCode(200)
                 .contentType(ContentType.JSON)
-                .body(matchesJsonSchema(TRANSACTION_SCHEMA_PATH))
+                .body(matchesSchema(TRANSACTION_SCHEMA_PATH))
                 .extract()
                 .response()
                 .getBody()
@@ -567,7 +548,7 @@ public class TransactionTests {
     @Test
     public void invalidSessionTransactionPutTest() {
         given()
-                .body(String.format(TEST_TRANSACTION_INPUT_FORMAT, testCategoryId))
+                .body(testTransactionBody(null))
                 .put(String.format("api/v1/transactions/%d", testTransactionId))
                 .then()
                 .assertThat()
@@ -583,7 +564,7 @@ public class TransactionTests {
     public void validSessionInvalidTransactionIdPutTest() {
         given()
                 .header("X-session-ID", sessionId)
-                .body(String.format(TEST_TRANSACTION_INPUT_FORMAT, testCategoryId))
+                .body(testTransactionBody(null))
                 .put(String.format("api/v1/transactions/%d", -42))
                 .then()
                 .assertThat()
@@ -685,12 +666,12 @@ public class TransactionTests {
 
         int categoryId = given()
                 .header("X-session-id", sessionId)
-                .body(String.format(TEST_CATEGORY_INPUT_FORMAT, testCategoryId))
+                .body(RequestBodies.categoryAssignment(testCategoryId))
                 .patch(String.format("api/v1/transactions/%d/category", testTransactionId))
                 .then()
                 .assertThat()
                 .statusCode(200)
-                .body(matchesJsonSchema(TRANSACTION_SCHEMA_PATH))
+                .body(matchesSchema(TRANSACTION_SCHEMA_PATH))
                 .extract()
                 .jsonPath()
                 .get("category.id");
@@ -711,7 +692,7 @@ public class TransactionTests {
 
         given()
                 .header("X-session-id", Util.getSessionID())
-                .body(String.format(TEST_CATEGORY_INPUT_FORMAT, testCategoryId))
+                .body(RequestBodies.categoryAssignment(testCategoryId))
                 .patch(String.format("api/v1/transactions/%d/category", testTransactionId))
                 .then()
                 .assertThat()
@@ -726,7 +707,7 @@ public class TransactionTests {
     @Test
     public void invalidSessionPatchTest() {
         given()
-                .body(String.format(TEST_CATEGORY_INPUT_FORMAT, testCategoryId))
+                .body(RequestBodies.categoryAssignment(testCategoryId))
                 .patch(String.format("api/v1/transactions/%d/category", testTransactionId))
                 .then()
                 .assertThat()
@@ -746,7 +727,7 @@ public class TransactionTests {
 
         given()
                 .header("X-session-id", sessionId)
-                .body(String.format(TEST_CATEGORY_INPUT_FORMAT, -42))
+                .body(RequestBodies.categoryAssignment(-42))
                 .patch(String.format("api/v1/transactions/%d/category", testTransactionId))
                 .then()
                 .assertThat()
@@ -763,10 +744,21 @@ public class TransactionTests {
     public void validSessionInvalidTransactionIdValidCategoryIdPatchTest() {
     given()
             .header("X-session-id", sessionId)
-            .body(String.format(TEST_CATEGORY_INPUT_FORMAT, testCategoryId))
+            .body(RequestBodies.categoryAssignment(testCategoryId))
             .patch(String.format("api/v1/transactions/%d/category", -42))
             .then()
             .assertThat()
             .statusCode(404);
     }
+
+    /**
+     * Helper function to create the body of the transaction used for testing, which uses the test category.
+     *
+     * @param description the description of the transaction, or null to leave it out
+     * @return the JSON representation of the transaction
+     */
+    private static String testTransactionBody(String description) {
+        return RequestBodies.transaction(TEST_TRANSACTION_DATE, TEST_TRANSACTION_AMOUNT, "string", "deposit",
+                description, testCategoryId, TEST_CATEGORY_NAME);
+    }
 }
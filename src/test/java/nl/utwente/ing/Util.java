@@ -24,26 +24,57 @@
  */
 package nl.utwente.ing;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
 import static io.restassured.RestAssured.given;
 import static io.restassured.RestAssured.post;
-import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchema;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import static nl.utwente.ing.JsonSchemas.matchesSchema;
+
+import nl.utwente.ing.embedded.EmbeddedApi;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Util {
 
-    private static final Path SESSION_SCHEMA_PATH = Paths.get("src/test/java/nl/utwente/ing/schemas/session.json");
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-    private static final String PAYMENT_REQUEST_FORMAT =
-            "{" +
-                    "\"description\": \"%s\"," +
-                    "\"due_date\": \"%s\"," +
-                    "\"amount\": %s," +
-                    "\"number_of_requests\": %d" +
-                    "}";
+    private static final String SESSION_SCHEMA_PATH = "session.json";
+    // The number of concurrent requests used when creating resources in bulk, unless specified otherwise.
+    private static final int DEFAULT_MAX_IN_FLIGHT = Integer.getInteger("seed.inFlight", 32);
+
+    static {
+        // Makes sure classes which are run outside of the TestSuite also use the embedded API, share pooled
+        // connections and are captured.
+        EmbeddedApi.install();
+        PooledHttpClient.install();
+        TrafficCapture.install();
+    }
+
+    /**
+     * The resources which can be created for a session, together with the endpoint used to create them.
+     */
+    public enum Resource {
+        TRANSACTIONS("api/v1/transactions"),
+        CATEGORIES("api/v1/categories"),
+        CATEGORY_RULES("api/v1/categoryRules"),
+        PAYMENT_REQUESTS("api/v1/paymentRequests"),
+        SAVING_GOALS("api/v1/savingGoals");
+
+        private final String path;
+
+        Resource(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
 
     /**
      * Accesses the session API endpoint to generate a new session ID.
@@ -54,7 +85,30 @@ public class Util {
         return post("api/v1/sessions")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(SESSION_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(SESSION_SCHEMA_PATH))
+                .statusCode(201)
+                .extract()
+                .response()
+                .getBody()
+                .jsonPath()
+                .getString("id");
+    }
+
+    /**
+     * Forks a session: the new session starts with all resources of the given session, which it shares until either
+     * session changes them, so a seeded session can be cloned in constant time. Only the embedded API supports
+     * forking sessions.
+     *
+     * @param sessionId the session to fork
+     * @return the ID of the new session
+     */
+    public static String forkSession(String sessionId) {
+        return given()
+                .header("X-session-ID", sessionId)
+                .post("api/v1/sessions/fork")
+                .then()
+                .assertThat()
+                .body(matchesSchema(SESSION_SCHEMA_PATH))
                 .statusCode(201)
                 .extract()
                 .response()
@@ -65,15 +119,9 @@ public class Util {
 
     public static int createTestTransaction(String date, int amount, String externalIBAN, String type,
                                             String description, String sessionId) {
-        return given()
+        int id = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format("{" +
-                        "\"date\": \"%s\", " +
-                        "\"amount\": %d, " +
-                        "\"externalIBAN\": \"%s\", " +
-                        "\"type\": \"%s\", " +
-                        "\"description\":\"%s\"" +
-                        "}", date, amount, externalIBAN, type, description))
+                .body(RequestBodies.transaction(date, amount, externalIBAN, type, description))
                 .post("api/v1/transactions")
                 .then()
                 .assertThat()
@@ -83,32 +131,52 @@ public class Util {
                 .getBody()
                 .jsonPath()
                 .getInt("id");
+        TestData.register(sessionId, Resource.TRANSACTIONS, id);
+        return id;
     }
 
     public static int createTestCategory(String name, String sessionId) {
-        return given()
+        int id = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format("{\"name\": \"%s\"}", name))
+                .body(RequestBodies.category(name))
                 .post("api/v1/categories")
                 .then()
                 .assertThat()
-                .body(matchesJsonSchema(CategoryTests.CATEGORY_SCHEMA_PATH.toAbsolutePath().toUri()))
+                .body(matchesSchema(CategoryTests.CATEGORY_SCHEMA_PATH))
                 .statusCode(201)
                 .extract()
                 .response()
                 .getBody()
                 .jsonPath()
                 .getInt("id");
+        TestData.register(sessionId, Resource.CATEGORIES, id);
+        return id;
     }
 
-    public static int createTestPaymentRequest(String description, Calendar dueDate, String amount, int requestCount,
-                                               String sessionId) {
-        return given()
+    public static int createTestCategoryRule(String description, String iBAN, String type, int categoryId,
+                                             boolean applyOnHistory, String sessionId) {
+        int id = given()
+                .header("X-session-ID", sessionId)
+                .body(RequestBodies.categoryRule(description, iBAN, type, categoryId, applyOnHistory))
+                .post("api/v1/categoryRules")
+                .then()
+                .assertThat()
+                .body(matchesSchema(CategoryRuleTests.CATEGORYRULE_SCHEMA_PATH))
+                .statusCode(201)
+                .extract()
+                .response()
+                .getBody()
+                .jsonPath()
+                .getInt("id");
+        TestData.register(sessionId, Resource.CATEGORY_RULES, id);
+        return id;
+    }
+
+    public static int createTestPaymentRequest(String description, ZonedDateTime dueDate, double amount,
+                                               int requestCount, String sessionId) {
+        int id = given()
                 .header("X-session-ID", sessionId)
-                .body(String.format(PAYMENT_REQUEST_FORMAT,
-                        description,
-                        DATE_FORMAT.format(dueDate.getTime()),
-                        amount,
+                .body(RequestBodies.paymentRequest(description, Timestamps.format(dueDate), amount,
                         requestCount))
                 .post("api/v1/paymentRequests")
                 .then()
@@ -119,6 +187,27 @@ public class Util {
                 .getBody()
                 .jsonPath()
                 .getInt("id");
+        TestData.register(sessionId, Resource.PAYMENT_REQUESTS, id);
+        return id;
+    }
+
+    public static int createTestSavingGoal(String name, double goal, double savePerMonth, double minBalanceRequired,
+                                           String sessionId) {
+        int id = given()
+                .header("X-session-ID", sessionId)
+                .body(RequestBodies.savingGoal(name, goal, savePerMonth, minBalanceRequired))
+                .post("api/v1/savingGoals")
+                .then()
+                .assertThat()
+                .body(matchesSchema(SavingGoalsTests.SAVING_GOAL_SCHEMA_PATH))
+                .statusCode(201)
+                .extract()
+                .response()
+                .getBody()
+                .jsonPath()
+                .getInt("id");
+        TestData.register(sessionId, Resource.SAVING_GOALS, id);
+        return id;
     }
 
     public static void deleteTestCategory(int id, String sessionId) {
@@ -126,4 +215,106 @@ public class Util {
                 .header("X-session-ID", sessionId)
                 .delete(String.format("api/v1/categories/%d", id));
     }
+
+    /**
+     * Creates resources in bulk by sending the given request bodies concurrently, using the default number of
+     * requests in flight (set using the {@code seed.inFlight} system property).
+     *
+     * @see #createInBulk(Resource, Iterator, String, int)
+     */
+    public static List<Integer> createInBulk(Resource resource, Iterable<String> bodies, String sessionId) {
+        return createInBulk(resource, bodies.iterator(), sessionId, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Creates resources in bulk by sending the given request bodies concurrently.
+     * <p>
+     * The bodies are consumed lazily, so a generator producing millions of bodies does not have to be kept in
+     * memory. At most {@code maxInFlight} requests are sent at the same time and no more bodies are taken from the
+     * iterator until a request has completed. Once a request has failed, no further bodies are taken and its
+     * failure is rethrown.
+     *
+     * @param resource the type of the resources to create
+     * @param bodies the JSON request bodies of the resources to create
+     * @param sessionId the session for which to create the resources
+     * @param maxInFlight the maximum number of concurrent requests
+     * @return the IDs of the created resources, in the order in which their bodies were given, which have all been
+     * registered for deletion in {@link TestData}
+     */
+    public static List<Integer> createInBulk(Resource resource, Iterator<String> bodies, String sessionId,
+                                             int maxInFlight) {
+        ExecutorService executor = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-" + resource.name().toLowerCase());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        try {
+            // The permit is taken before the next body is generated, so lazy iterators stay within the limit.
+            // No further resources are created once one has failed; the failure is rethrown below.
+            while (true) {
+                inFlight.acquire();
+                if (failed.get() || !bodies.hasNext()) {
+                    inFlight.release();
+                    break;
+                }
+                String body = bodies.next();
+                futures.add(executor.submit(() -> {
+                    try {
+                        return createResource(resource, body, sessionId);
+                    } catch (RuntimeException | Error e) {
+                        failed.set(true);
+                        throw e;
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            List<Integer> ids = new ArrayList<>(futures.size());
+            for (Future<Integer> future : futures) {
+                ids.add(future.get());
+            }
+            return ids;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while creating " + resource, e);
+        } catch (ExecutionException e) {
+            // Rethrow assertion errors as they are, so failures are reported the same way as for single requests.
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Could not create " + resource, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a single resource, registers it for deletion and returns its ID.
+     *
+     * @param resource the type of the resource to create
+     * @param body the JSON request body of the resource
+     * @param sessionId the session for which to create the resource
+     * @return the ID of the created resource
+     */
+    private static int createResource(Resource resource, String body, String sessionId) {
+        int id = given()
+                .header("X-session-ID", sessionId)
+                .body(body)
+                .post(resource.getPath())
+                .then()
+                .assertThat()
+                .statusCode(201)
+                .extract()
+                .response()
+                .getBody()
+                .jsonPath()
+                .getInt("id");
+        TestData.register(sessionId, resource, id);
+        return id;
+    }
 }
@@ -0,0 +1,474 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes the requests on the {@code api/v1} endpoints to the session they belong to.
+ * <p>
+ * Sessions are identified by the {@code X-session-ID} header, or by the {@code session_id} query parameter. The
+ * threads of the server read the request and write the response, while the operation itself, including building the
+ * response body, is executed on the {@link Shard} of the session, so sessions are never locked.
+ */
+final class ApiHandler implements HttpHandler {
+
+    private static final String PREFIX = "/api/v1/";
+    private static final String SESSION_HEADER = "X-session-ID";
+    private static final String SESSION_PARAMETER = "session_id";
+    private static final int DEFAULT_LIMIT = 20;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Sessions sessions;
+
+    ApiHandler(Sessions sessions) {
+        this.sessions = sessions;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Response response;
+            try {
+                response = handle(new Request(exchange));
+            } catch (ApiException e) {
+                response = error(e.getStatus(), e.getMessage());
+            } catch (RuntimeException e) {
+                response = error(500, "Internal server error");
+            }
+            send(exchange, response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response handle(Request request) throws IOException {
+        if ("sessions".equals(request.segment(0))) {
+            return sessions(request);
+        }
+
+        Session session = sessions.get(request.getSessionId());
+        return sessions.shardOf(session).execute(() -> {
+            try {
+                return dispatch(session, request);
+            } catch (ApiException e) {
+                return error(e.getStatus(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Creates a new session, or forks the session of the request if the path is {@code sessions/fork}.
+     */
+    private Response sessions(Request request) throws IOException {
+        Session session;
+        if (request.segments.length == 1) {
+            request.requireMethod("POST");
+            session = sessions.create();
+        } else {
+            request.requireLength(2);
+            if (!"fork".equals(request.segment(1))) {
+                throw ApiException.notFound();
+            }
+            request.requireMethod("POST");
+            session = sessions.fork(sessions.get(request.getSessionId()));
+        }
+        return json(201, generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("id", session.getId());
+            generator.writeEndObject();
+        });
+    }
+
+    private static Response dispatch(Session session, Request request) throws IOException {
+        switch (request.segment(0)) {
+            case "transactions":
+                return transactions(session, request);
+            case "categories":
+                return categories(session, request);
+            case "categoryRules":
+                return categoryRules(session, request);
+            case "balance":
+                return balanceHistory(session, request);
+            case "savingGoals":
+                return savingGoals(session, request);
+            case "paymentRequests":
+                return paymentRequests(session, request);
+            default:
+                throw ApiException.notFound();
+        }
+    }
+
+    private static Response transactions(Session session, Request request) throws IOException {
+        if (request.segments.length == 1) {
+            if (request.is("GET")) {
+                List<Transaction> transactions = session.listTransactions(request.getInt("offset", 0),
+                        request.getInt("limit", DEFAULT_LIMIT), request.getParameter("category"));
+                return json(200, generator -> {
+                    generator.writeStartArray();
+                    for (Transaction transaction : transactions) {
+                        transaction.write(generator);
+                    }
+                    generator.writeEndArray();
+                });
+            }
+            request.requireMethod("POST");
+            return json(201, session.createTransaction(request.getBody())::write);
+        }
+
+        int transactionId = request.getId(1);
+        if (request.segments.length == 3 && "category".equals(request.segment(2))) {
+            request.requireMethod("PATCH");
+            return json(200, session.assignCategory(transactionId, request.getBody())::write);
+        }
+        request.requireLength(2);
+        switch (request.method) {
+            case "GET":
+                return json(200, session.getTransaction(transactionId)::write);
+            case "PUT":
+                return json(200, session.updateTransaction(transactionId, request.getBody())::write);
+            case "DELETE":
+                session.deleteTransaction(transactionId);
+                return Response.NO_CONTENT;
+            default:
+                throw ApiException.invalidInput();
+        }
+    }
+
+    private static Response categories(Session session, Request request) throws IOException {
+        if (request.segments.length == 1) {
+            if (request.is("GET")) {
+                return json(200, generator -> {
+                    generator.writeStartArray();
+                    for (Category category : session.listCategories()) {
+                        category.write(generator);
+                    }
+                    generator.writeEndArray();
+                });
+            }
+            request.requireMethod("POST");
+            return json(201, session.createCategory(request.getBody())::write);
+        }
+
+        request.requireLength(2);
+        int categoryId = request.getId(1);
+        switch (request.method) {
+            case "GET":
+                return json(200, session.getCategory(categoryId)::write);
+            case "PUT":
+                return json(200, session.updateCategory(categoryId, request.getBody())::write);
+            case "DELETE":
+                session.deleteCategory(categoryId);
+                return Response.NO_CONTENT;
+            default:
+                throw ApiException.invalidInput();
+        }
+    }
+
+    private static Response categoryRules(Session session, Request request) throws IOException {
+        if (request.segments.length == 1) {
+            if (request.is("GET")) {
+                return json(200, generator -> {
+                    generator.writeStartArray();
+                    for (CategoryRule rule : session.listRules()) {
+                        rule.write(generator);
+                    }
+                    generator.writeEndArray();
+                });
+            }
+            request.requireMethod("POST");
+            return json(201, session.createRule(request.getBody())::write);
+        }
+
+        request.requireLength(2);
+        int ruleId = request.getId(1);
+        switch (request.method) {
+            case "GET":
+                return json(200, session.getRule(ruleId)::write);
+            case "PUT":
+                return json(200, session.updateRule(ruleId, request.getBody())::write);
+            case "DELETE":
+                session.deleteRule(ruleId);
+                return Response.NO_CONTENT;
+            default:
+                throw ApiException.invalidInput();
+        }
+    }
+
+    private static Response balanceHistory(Session session, Request request) throws IOException {
+        if (request.segments.length != 2 || !"history".equals(request.segment(1))) {
+            throw ApiException.notFound();
+        }
+        request.requireMethod("GET");
+        String interval = request.getParameter("interval");
+        BalanceHistory.Unit unit = interval == null ? BalanceHistory.Unit.MONTH : BalanceHistory.Unit.parse(interval);
+        int intervals = request.getInt("intervals", BalanceHistory.DEFAULT_INTERVALS);
+        if (intervals < 1 || intervals > BalanceHistory.MAX_INTERVALS) {
+            throw ApiException.invalidInput();
+        }
+        Ledger ledger = session.getLedger();
+        return json(200, generator ->
+                BalanceHistory.write(generator, ledger, unit, intervals, session.getSystemTime()));
+    }
+
+    private static Response savingGoals(Session session, Request request) throws IOException {
+        if (request.segments.length == 1) {
+            if (request.is("GET")) {
+                List<SavingGoal> goals = session.listGoals();
+                Ledger ledger = session.getLedger();
+                return json(200, generator -> {
+                    generator.writeStartArray();
+                    for (int i = 0; i < goals.size(); i++) {
+                        goals.get(i).write(generator, ledger.getSaved(i));
+                    }
+                    generator.writeEndArray();
+                });
+            }
+            request.requireMethod("POST");
+            SavingGoal goal = session.createGoal(request.getBody());
+            // Money is only put aside at the start of a month after the goal has been created.
+            return json(201, generator -> goal.write(generator, 0));
+        }
+
+        request.requireLength(2);
+        request.requireMethod("DELETE");
+        session.deleteGoal(request.getId(1));
+        return Response.NO_CONTENT;
+    }
+
+    private static Response paymentRequests(Session session, Request request) throws IOException {
+        request.requireLength(1);
+        if (request.is("GET")) {
+            return json(200, generator -> {
+                generator.writeStartArray();
+                for (PaymentRequest paymentRequest : session.listPaymentRequests()) {
+                    paymentRequest.write(generator);
+                }
+                generator.writeEndArray();
+            });
+        }
+        request.requireMethod("POST");
+        return json(201, session.createPaymentRequest(request.getBody())::write);
+    }
+
+    private static Response json(int status, Body body) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = JSON.createGenerator(output)) {
+            body.write(generator);
+        }
+        return new Response(status, output.toByteArray());
+    }
+
+    /**
+     * Creates the response to a failed request, with a body describing the error. RestAssured does not release the
+     * connection of a response which has a body of length 0, so error responses are never empty.
+     */
+    private static Response error(int status, String message) throws IOException {
+        return json(status, generator -> {
+            generator.writeStartObject();
+            generator.writeNumberField("status", status);
+            generator.writeStringField("message", message);
+            generator.writeEndObject();
+        });
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        // The server drops the connection after a response without a body if the request body has not been read up
+        // to its end by then, so the request body is always closed, which skips what is left of it.
+        exchange.getRequestBody().close();
+        if (response.body == null) {
+            exchange.sendResponseHeaders(response.status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status, response.body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response.body);
+        }
+    }
+
+    /**
+     * Writes the JSON body of a response.
+     */
+    @FunctionalInterface
+    private interface Body {
+
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * The status and the body of a response. Only responses with status 204 have a null body.
+     */
+    private static class Response {
+
+        private static final Response NO_CONTENT = new Response(204, null);
+
+        private final int status;
+        private final byte[] body;
+
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * A request on one of the {@code api/v1} endpoints.
+     */
+    private static class Request {
+
+        private final HttpExchange exchange;
+        private final String method;
+        // The path below api/v1, split into its segments.
+        private final String[] segments;
+        private final Map<String, String> parameters;
+        // The raw body, read by the thread of the server so the shard only has to parse it.
+        private final byte[] body;
+
+        private Request(HttpExchange exchange) throws IOException {
+            this.exchange = exchange;
+            method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+            if (!path.startsWith(PREFIX)) {
+                throw ApiException.notFound();
+            }
+            segments = path.substring(PREFIX.length()).split("/");
+            parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            body = is("GET") || is("DELETE") ? null : readBody(exchange);
+        }
+
+        private String segment(int index) {
+            return segments[index];
+        }
+
+        private boolean is(String method) {
+            return this.method.equals(method);
+        }
+
+        private void requireMethod(String method) {
+            if (!is(method)) {
+                throw ApiException.invalidInput();
+            }
+        }
+
+        private void requireLength(int length) {
+            if (segments.length != length) {
+                throw ApiException.notFound();
+            }
+        }
+
+        /**
+         * Returns the resource ID in the given segment. Malformed IDs cannot refer to any resource.
+         */
+        private int getId(int index) {
+            try {
+                return Integer.parseInt(segments[index]);
+            } catch (NumberFormatException e) {
+                throw ApiException.notFound();
+            }
+        }
+
+        private String getSessionId() {
+            String sessionId = exchange.getRequestHeaders().getFirst(SESSION_HEADER);
+            return sessionId != null ? sessionId : parameters.get(SESSION_PARAMETER);
+        }
+
+        private String getParameter(String name) {
+            return parameters.get(name);
+        }
+
+        /**
+         * Returns a non-negative integer query parameter.
+         */
+        private int getInt(String name, int defaultValue) {
+            String value = parameters.get(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                int result = Integer.parseInt(value);
+                if (result < 0) {
+                    throw ApiException.invalidInput();
+                }
+                return result;
+            } catch (NumberFormatException e) {
+                throw ApiException.invalidInput();
+            }
+        }
+
+        private JsonNode getBody() throws IOException {
+            if (body == null) {
+                throw ApiException.invalidInput();
+            }
+            return JsonInput.parse(body);
+        }
+
+        private static byte[] readBody(HttpExchange exchange) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+            byte[] buffer = new byte[1024];
+            try (InputStream input = exchange.getRequestBody()) {
+                for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+                    body.write(buffer, 0, read);
+                }
+            }
+            return body.toByteArray();
+        }
+
+        private static Map<String, String> parseQuery(String query) {
+            if (query == null || query.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            Map<String, String> parameters = new HashMap<>();
+            try {
+                for (String parameter : query.split("&")) {
+                    int separator = parameter.indexOf('=');
+                    if (separator > 0) {
+                        parameters.putIfAbsent(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                                URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+                    }
+                }
+            } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+                throw ApiException.invalidInput();
+            }
+            return parameters;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Writes the balance history of a session as a list of candlesticks, from the newest interval to the oldest one.
+ * <p>
+ * The newest interval ends at the system time of the session, and every interval includes its end but not its start.
+ * Hours, days and weeks have a fixed length; months and years follow the calendar in UTC. For each interval the
+ * following values are written:
+ * <ul>
+ *     <li>{@code open}: the balance after the first change in the interval</li>
+ *     <li>{@code close}: the balance after the last change in the interval</li>
+ *     <li>{@code high} and {@code low}: the highest and lowest balance after any change in the interval</li>
+ *     <li>{@code volume}: the total amount of all transactions in the interval</li>
+ *     <li>{@code timestamp}: the end of the interval, in seconds since the epoch</li>
+ * </ul>
+ * Intervals without any change have the closing balance of the previous interval for all balances and a volume of 0.
+ */
+final class BalanceHistory {
+
+    static final int DEFAULT_INTERVALS = 24;
+    static final int MAX_INTERVALS = 10_000;
+
+    private BalanceHistory() {
+    }
+
+    /**
+     * The granularity of the intervals.
+     */
+    enum Unit {
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS),
+        WEEK(ChronoUnit.WEEKS),
+        MONTH(ChronoUnit.MONTHS),
+        YEAR(ChronoUnit.YEARS);
+
+        private final ChronoUnit unit;
+
+        Unit(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        /**
+         * Parses the value of the {@code interval} parameter.
+         */
+        static Unit parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw ApiException.invalidInput();
+            }
+        }
+    }
+
+    /**
+     * Writes the balance history.
+     *
+     * @param generator the generator to write the list of intervals to
+     * @param ledger the balance of the session over time
+     * @param unit the length of each interval
+     * @param intervals the number of intervals
+     * @param end the end of the newest interval, in milliseconds since the epoch
+     */
+    static void write(JsonGenerator generator, Ledger ledger, Unit unit, int intervals, long end) throws IOException {
+        // The boundaries of the intervals from the oldest to the newest, so interval i is (bounds[i], bounds[i + 1]].
+        long[] bounds = new long[intervals + 1];
+        ZonedDateTime endTime = Instant.ofEpochMilli(end).atZone(ZoneOffset.UTC);
+        try {
+            for (int i = 0; i <= intervals; i++) {
+                bounds[intervals - i] = endTime.minus(i, unit.unit).toInstant().toEpochMilli();
+            }
+        } catch (DateTimeException | ArithmeticException e) {
+            throw ApiException.invalidInput();
+        }
+
+        double[] values = new double[intervals * 5];
+        int entry = ledger.countUntil(bounds[0]);
+        double close = entry == 0 ? 0 : ledger.getBalance(entry - 1);
+        for (int i = 0; i < intervals; i++) {
+            double open = close;
+            double high = close;
+            double low = close;
+            double volume = 0;
+            for (boolean first = true; entry < ledger.size() && ledger.getTime(entry) <= bounds[i + 1]; entry++) {
+                double balance = ledger.getBalance(entry);
+                if (first) {
+                    open = balance;
+                    high = balance;
+                    low = balance;
+                    first = false;
+                }
+                high = Math.max(high, balance);
+                low = Math.min(low, balance);
+                volume += ledger.getVolume(entry);
+                close = balance;
+            }
+            values[i * 5] = open;
+            values[i * 5 + 1] = close;
+            values[i * 5 + 2] = high;
+            values[i * 5 + 3] = low;
+            values[i * 5 + 4] = volume;
+        }
+
+        generator.writeStartArray();
+        for (int i = intervals - 1; i >= 0; i--) {
+            generator.writeStartObject();
+            generator.writeNumberField("open", values[i * 5]);
+            generator.writeNumberField("close", values[i * 5 + 1]);
+            generator.writeNumberField("high", values[i * 5 + 2]);
+            generator.writeNumberField("low", values[i * 5 + 3]);
+            generator.writeNumberField("volume", values[i * 5 + 4]);
+            generator.writeNumberField("timestamp", Math.floorDiv(bounds[i + 1], 1000L));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+}
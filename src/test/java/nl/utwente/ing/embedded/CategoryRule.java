@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Assigns a category to the transactions matching a description, IBAN and type. Blank criteria match every
+ * transaction, and the description matches every transaction whose description contains it.
+ */
+final class CategoryRule {
+
+    final int id;
+    String description;
+    String iBAN;
+    String type;
+    int categoryId;
+    boolean applyOnHistory;
+
+    CategoryRule(int id) {
+        this.id = id;
+    }
+
+    CategoryRule copy() {
+        CategoryRule copy = new CategoryRule(id);
+        copy.description = description;
+        copy.iBAN = iBAN;
+        copy.type = type;
+        copy.categoryId = categoryId;
+        copy.applyOnHistory = applyOnHistory;
+        return copy;
+    }
+
+    boolean matches(Transaction transaction) {
+        return (description.isEmpty()
+                || transaction.description != null && transaction.description.contains(description))
+                && (iBAN.isEmpty() || iBAN.equalsIgnoreCase(transaction.externalIBAN))
+                && (type.isEmpty() || type.equals(transaction.type));
+    }
+
+    void write(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", id);
+        generator.writeStringField("description", description);
+        generator.writeStringField("iBAN", iBAN);
+        generator.writeStringField("type", type);
+        generator.writeNumberField("category_id", categoryId);
+        generator.writeBooleanField("applyOnHistory", applyOnHistory);
+        generator.writeEndObject();
+    }
+}
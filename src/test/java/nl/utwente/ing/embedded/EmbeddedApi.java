@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import com.sun.net.httpserver.HttpServer;
+import io.restassured.RestAssured;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An in-memory implementation of the {@code api/v1} endpoints, which runs inside the JVM of the tests.
+ * <p>
+ * The embedded API implements the contract pinned down by the test classes and the JSON schemas, so the test suite
+ * can run without an externally deployed server. It listens on a random port of the loopback interface and starts
+ * within milliseconds. All data is kept in memory and lost when the JVM exits. The embedded API is configured using
+ * the following system properties:
+ * <ul>
+ *     <li>{@code api.embedded}: whether the tests run against the embedded API; set it to {@code false} to test the
+ *     server at RestAssured's default base URI instead (default true)</li>
+ *     <li>{@code api.embedded.threads}: the number of threads handling requests (default twice the number of
+ *     available processors)</li>
+ *     <li>{@code api.embedded.shards}: the number of shards the sessions are partitioned over, each with a single
+ *     thread executing all operations on its sessions (default the number of available processors)</li>
+ *     <li>{@code api.embedded.sessions}: the initial capacity of the session registry, which grows as needed
+ *     (default 1024)</li>
+ *     <li>{@code api.embedded.sessionIdle}: the number of seconds after which unused sessions expire (default 3600)
+ *     </li>
+ *     <li>{@code api.embedded.sessionLifetime}: the number of seconds after which all sessions expire (default
+ *     86400)</li>
+ * </ul>
+ */
+public final class EmbeddedApi {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("api.embedded", "true"));
+    private static final int THREADS = Integer.getInteger("api.embedded.threads",
+            2 * Runtime.getRuntime().availableProcessors());
+    private static final int BACKLOG = 1024;
+
+    private static HttpServer server;
+    private static boolean disabled;
+
+    private EmbeddedApi() {
+    }
+
+    /**
+     * Starts the embedded API and points RestAssured at it, unless the embedded API has been disabled. Calling this
+     * method more than once has no further effect.
+     */
+    public static synchronized void install() {
+        if (server != null || disabled || !ENABLED) {
+            return;
+        }
+        server = start();
+        RestAssured.baseURI = "http://" + server.getAddress().getHostString();
+        RestAssured.port = server.getAddress().getPort();
+    }
+
+    /**
+     * Prevents the embedded API from being installed, for clients which point RestAssured at a server of their own.
+     * An embedded API which has already been installed keeps running.
+     */
+    public static synchronized void disable() {
+        disabled = true;
+    }
+
+    /**
+     * Returns the port of the embedded API.
+     *
+     * @return the port, or -1 if the embedded API has not been installed
+     */
+    public static synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    private static HttpServer start() {
+        // The server writes the headers and the body of a response separately. Without TCP_NODELAY the body is held
+        // back until the headers are acknowledged, which the client delays by up to 40 ms.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer httpServer;
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), BACKLOG);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the embedded API", e);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "embedded-api");
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/", new ApiHandler(new Sessions()));
+
+        // The dispatcher thread of the server inherits the daemon status of the thread starting it, so the server
+        // is started from a daemon thread to keep it from preventing the JVM from exiting.
+        Thread starter = new Thread(httpServer::start, "embedded-api-start");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return httpServer;
+    }
+}
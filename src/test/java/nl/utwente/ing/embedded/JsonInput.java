@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.utwente.ing.Timestamps;
+
+import java.io.IOException;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads the fields of JSON request bodies. Every missing or malformed field is reported as invalid input.
+ * <p>
+ * Clients do not always send a JSON content type, so bodies are parsed regardless of the content type of the request.
+ * Numbers may also be given as strings, e.g. {@code "213.04"}.
+ */
+final class JsonInput {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private JsonInput() {
+    }
+
+    /**
+     * Parses a request body which has to contain a JSON object.
+     *
+     * @param body the raw request body
+     * @return the parsed object
+     */
+    static JsonNode parse(byte[] body) {
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(body);
+        } catch (IOException e) {
+            throw ApiException.invalidInput();
+        }
+        if (node == null || !node.isObject()) {
+            throw ApiException.invalidInput();
+        }
+        return node;
+    }
+
+    static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isTextual()) {
+            throw ApiException.invalidInput();
+        }
+        return value.textValue();
+    }
+
+    /**
+     * Returns a string field, or {@code null} if the field is absent or null.
+     */
+    static String optionalText(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        return text(node, field);
+    }
+
+    static double number(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        double number;
+        if (value != null && value.isNumber()) {
+            number = value.doubleValue();
+        } else if (value != null && value.isTextual()) {
+            try {
+                number = Double.parseDouble(value.textValue());
+            } catch (NumberFormatException e) {
+                throw ApiException.invalidInput();
+            }
+        } else {
+            throw ApiException.invalidInput();
+        }
+        if (Double.isNaN(number) || Double.isInfinite(number)) {
+            throw ApiException.invalidInput();
+        }
+        return number;
+    }
+
+    static int integer(JsonNode node, String field) {
+        double number = number(node, field);
+        if (number != (int) number) {
+            throw ApiException.invalidInput();
+        }
+        return (int) number;
+    }
+
+    static boolean bool(JsonNode node, String field, boolean defaultValue) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return defaultValue;
+        }
+        if (!value.isBoolean()) {
+            throw ApiException.invalidInput();
+        }
+        return value.booleanValue();
+    }
+
+    /**
+     * Reads an ISO-8601 timestamp field.
+     *
+     * @return the number of milliseconds since the epoch
+     */
+    static long timestamp(JsonNode node, String field) {
+        try {
+            return Timestamps.parse(text(node, field));
+        } catch (DateTimeParseException e) {
+            throw ApiException.invalidInput();
+        }
+    }
+}
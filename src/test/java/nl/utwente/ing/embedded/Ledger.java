@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The balance of a session over time, derived from its transactions and saving goals.
+ * <p>
+ * Transactions are replayed in chronological order. At the start of every month after a saving goal has been
+ * created, the goals are processed in order of creation: each goal which has not been reached yet takes its monthly
+ * amount, or what remains of the goal, as long as the balance is at least the minimum required by the goal. Months
+ * are only processed up to the system time of the session, which is the date of its latest transaction.
+ * <p>
+ * Every transaction and every month in which money was put aside results in an entry, holding the balance after the
+ * change and the volume of the change. Money put aside does not count towards the volume.
+ */
+final class Ledger {
+
+    private static final Comparator<Transaction> CHRONOLOGICAL =
+            Comparator.comparingLong((Transaction transaction) -> transaction.date)
+                    .thenComparingInt(transaction -> transaction.id);
+
+    private long[] times;
+    private double[] balances;
+    private double[] volumes;
+    private int size;
+
+    private final List<SavingGoal> goals;
+    private final double[] saved;
+
+    private Ledger(int capacity, List<SavingGoal> goals) {
+        times = new long[capacity];
+        balances = new double[capacity];
+        volumes = new double[capacity];
+        this.goals = goals;
+        saved = new double[goals.size()];
+    }
+
+    /**
+     * Replays the given transactions and saving goals.
+     *
+     * @param transactions the transactions of the session, in any order
+     * @param goals the saving goals of the session, in order of creation
+     * @return the resulting ledger
+     */
+    static Ledger of(Iterable<Transaction> transactions, List<SavingGoal> goals) {
+        List<Transaction> sorted = new ArrayList<>();
+        transactions.forEach(sorted::add);
+        sorted.sort(CHRONOLOGICAL);
+
+        Ledger ledger = new Ledger(sorted.size() + 16, goals);
+        double balance = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            Transaction transaction = sorted.get(i);
+            if (i > 0) {
+                balance = ledger.processGoals(sorted.get(i - 1).date, transaction.date, balance);
+            }
+            balance += transaction.getBalanceChange();
+            ledger.add(transaction.date, balance, transaction.amount);
+        }
+        return ledger;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getTime(int index) {
+        return times[index];
+    }
+
+    double getBalance(int index) {
+        return balances[index];
+    }
+
+    double getVolume(int index) {
+        return volumes[index];
+    }
+
+    /**
+     * Returns the number of entries at or before the given point in time.
+     */
+    int countUntil(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the amount which has been put aside for a goal.
+     *
+     * @param index the position of the goal in the list of goals given to {@link #of}
+     */
+    double getSaved(int index) {
+        return saved[index];
+    }
+
+    /**
+     * Processes the saving goals at the start of every month after {@code from}, up to and including {@code to}.
+     *
+     * @return the balance after putting money aside
+     */
+    private double processGoals(long from, long to, double balance) {
+        if (goals.isEmpty()) {
+            return balance;
+        }
+        ZonedDateTime month = Instant.ofEpochMilli(from).atZone(ZoneOffset.UTC)
+                .truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(1);
+        for (long start = month.toInstant().toEpochMilli(); start <= to;
+             month = month.plusMonths(1), start = month.toInstant().toEpochMilli()) {
+            boolean changed = false;
+            for (int i = 0; i < goals.size(); i++) {
+                SavingGoal goal = goals.get(i);
+                if (goal.created < start && saved[i] < goal.goal && balance >= goal.minBalanceRequired) {
+                    double amount = Math.min(goal.savePerMonth, goal.goal - saved[i]);
+                    saved[i] += amount;
+                    balance -= amount;
+                    changed = true;
+                }
+            }
+            if (changed) {
+                add(start, balance, 0);
+            }
+        }
+        return balance;
+    }
+
+    private void add(long time, double balance, double volume) {
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            balances = Arrays.copyOf(balances, capacity);
+            volumes = Arrays.copyOf(volumes, capacity);
+        }
+        times[size] = time;
+        balances[size] = balance;
+        volumes[size] = volume;
+        size++;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import nl.utwente.ing.Timestamps;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A request for a number of deposits of a fixed amount. Every new deposit of exactly that amount is used to fill
+ * the oldest open request. The due date is not enforced, as the tests fill requests using deposits dated after it.
+ */
+final class PaymentRequest {
+
+    // Amounts are compared up to half a cent.
+    private static final double AMOUNT_TOLERANCE = 0.005;
+
+    final int id;
+    String description;
+    long dueDate;
+    double amount;
+    int numberOfRequests;
+    final List<Transaction> transactions = new ArrayList<>();
+
+    PaymentRequest(int id) {
+        this.id = id;
+    }
+
+    PaymentRequest copy() {
+        PaymentRequest copy = new PaymentRequest(id);
+        copy.description = description;
+        copy.dueDate = dueDate;
+        copy.amount = amount;
+        copy.numberOfRequests = numberOfRequests;
+        copy.transactions.addAll(transactions);
+        return copy;
+    }
+
+    boolean isFilled() {
+        return transactions.size() >= numberOfRequests;
+    }
+
+    /**
+     * Returns whether a new deposit can be used to fill this request.
+     */
+    boolean accepts(Transaction deposit) {
+        return !isFilled() && Math.abs(deposit.amount - amount) < AMOUNT_TOLERANCE;
+    }
+
+    void write(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", id);
+        generator.writeStringField("description", description);
+        generator.writeStringField("due_date", Timestamps.format(dueDate));
+        generator.writeNumberField("amount", amount);
+        generator.writeNumberField("number_of_requests", numberOfRequests);
+        generator.writeBooleanField("filled", isFilled());
+        generator.writeArrayFieldStart("transactions");
+        for (Transaction transaction : transactions) {
+            transaction.write(generator);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+}
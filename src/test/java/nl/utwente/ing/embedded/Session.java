@@ -0,0 +1,546 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * All resources of a single session, together with the operations the API performs on them.
+ * <p>
+ * Every resource is only visible to the session which created it, so requests for the resources of another session
+ * fail as if the resource does not exist. Resource IDs are unique within a session. Sessions are not thread-safe:
+ * the data of a session is only ever used by the thread of the {@link Shard} it belongs to.
+ * <p>
+ * Sessions can be {@link #fork forked} in constant time: the fork shares the resources of its source, and neither
+ * changes them in place anymore. Instead, the first change to a kind of resource copies the map holding them, but not
+ * the resources themselves. A shared resource is only copied once it is changed, together with the resources
+ * referring to it: the transactions of a category and the payment requests filled by a transaction. Adding a single
+ * transaction to a fork of a large session thus copies one map, and requests which only read resources never copy
+ * anything.
+ */
+class Session {
+
+    private final long tokenHigh;
+    private final long tokenLow;
+    private final String id;
+    private final long created = System.currentTimeMillis();
+    private volatile long lastAccess = created;
+    private volatile boolean removed;
+    private int nextId = 1;
+    // The date of the latest transaction, which the API uses as the current time of the session.
+    private long systemTime = Long.MIN_VALUE;
+
+    private Resources<Transaction> transactions = new Resources<>();
+    private Resources<Category> categories = new Resources<>();
+    private Resources<CategoryRule> rules = new Resources<>();
+    private Resources<SavingGoal> goals = new Resources<>();
+    private Resources<PaymentRequest> paymentRequests = new Resources<>();
+    // The resources which have been created or copied by this session since it was last forked, and thus may be
+    // changed in place. Null if the session has never shared its resources, in which case it owns all of them.
+    private Set<Object> owned;
+
+    Session(long tokenHigh, long tokenLow) {
+        this.tokenHigh = tokenHigh;
+        this.tokenLow = tokenLow;
+        this.id = SessionToken.format(tokenHigh, tokenLow);
+    }
+
+    /**
+     * Returns whether the given token is the token of this session.
+     */
+    boolean hasToken(long high, long low) {
+        return tokenHigh == high && tokenLow == low;
+    }
+
+    long getTokenHigh() {
+        return tokenHigh;
+    }
+
+    long getTokenLow() {
+        return tokenLow;
+    }
+
+    long getCreated() {
+        return created;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Records that the session has been used at the given time.
+     */
+    void touch(long now) {
+        if (now > lastAccess) {
+            lastAccess = now;
+        }
+    }
+
+    /**
+     * Returns whether the session has been removed from the {@link SessionTable}.
+     */
+    boolean isRemoved() {
+        return removed;
+    }
+
+    void markRemoved() {
+        removed = true;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    /**
+     * Creates a new session which starts with the resources of this session, sharing them until either session
+     * changes its resources. Both sessions continue to count resource IDs from the same point.
+     *
+     * @param tokenHigh the high bits of the token of the new session
+     * @param tokenLow the low bits of the token of the new session
+     * @return the new session
+     */
+    Session fork(long tokenHigh, long tokenLow) {
+        Session fork = new Session(tokenHigh, tokenLow);
+        fork.nextId = nextId;
+        fork.systemTime = systemTime;
+        fork.transactions = transactions.share();
+        fork.categories = categories.share();
+        fork.rules = rules.share();
+        fork.goals = goals.share();
+        fork.paymentRequests = paymentRequests.share();
+        fork.owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        return fork;
+    }
+
+    /**
+     * Returns the system time of the session, or the current time if the session has no transactions yet.
+     */
+    long getSystemTime() {
+        return systemTime == Long.MIN_VALUE ? System.currentTimeMillis() : systemTime;
+    }
+
+    /**
+     * Lists transactions in order of creation.
+     *
+     * @param offset the number of matching transactions to skip
+     * @param limit the maximum number of transactions to return
+     * @param category the name of the category of the transactions, or null to list all transactions
+     */
+    List<Transaction> listTransactions(int offset, int limit, String category) {
+        List<Transaction> result = new ArrayList<>(Math.min(limit, transactions.read().size()));
+        int skipped = 0;
+        for (Transaction transaction : transactions.read().values()) {
+            if (result.size() == limit) {
+                break;
+            }
+            if (category != null && (transaction.category == null || !category.equals(transaction.category.name))) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(transaction);
+            }
+        }
+        return result;
+    }
+
+    Transaction getTransaction(int transactionId) {
+        return find(transactions, transactionId);
+    }
+
+    /**
+     * Creates a transaction. Transactions without a category are categorised by the first matching rule, and
+     * deposits are used to fill the oldest matching payment request.
+     */
+    Transaction createTransaction(JsonNode body) {
+        Transaction transaction = new Transaction(nextId);
+        readTransaction(transaction, body);
+        if (transaction.category == null) {
+            transaction.category = categorise(transaction);
+        }
+        nextId++;
+        transactions.write().put(transaction.id, created(transaction));
+
+        if (Transaction.DEPOSIT.equals(transaction.type)) {
+            for (PaymentRequest request : paymentRequests.read().values()) {
+                if (request.accepts(transaction)) {
+                    own(request).transactions.add(transaction);
+                    break;
+                }
+            }
+        }
+        systemTime = Math.max(systemTime, transaction.date);
+        return transaction;
+    }
+
+    /**
+     * Replaces the fields of a transaction. The category is kept unless the body assigns another one.
+     */
+    Transaction updateTransaction(int transactionId, JsonNode body) {
+        Transaction transaction = own(find(transactions, transactionId));
+        Transaction update = new Transaction(transactionId);
+        readTransaction(update, body);
+        transaction.date = update.date;
+        transaction.amount = update.amount;
+        transaction.externalIBAN = update.externalIBAN;
+        transaction.type = update.type;
+        transaction.description = update.description;
+        if (update.category != null) {
+            transaction.category = update.category;
+        }
+        systemTime = Math.max(systemTime, transaction.date);
+        return transaction;
+    }
+
+    void deleteTransaction(int transactionId) {
+        Transaction transaction = find(transactions, transactionId);
+        transactions.write().remove(transactionId);
+        for (PaymentRequest request : paymentRequests.read().values()) {
+            if (request.transactions.contains(transaction)) {
+                own(request).transactions.remove(transaction);
+            }
+        }
+        systemTime = Long.MIN_VALUE;
+        for (Transaction remaining : transactions.read().values()) {
+            systemTime = Math.max(systemTime, remaining.date);
+        }
+    }
+
+    Transaction assignCategory(int transactionId, JsonNode body) {
+        Category category = find(categories, JsonInput.integer(body, "category_id"));
+        Transaction transaction = own(find(transactions, transactionId));
+        transaction.category = category;
+        return transaction;
+    }
+
+    Collection<Category> listCategories() {
+        return categories.read().values();
+    }
+
+    Category getCategory(int categoryId) {
+        return find(categories, categoryId);
+    }
+
+    Category createCategory(JsonNode body) {
+        Category category = new Category(nextId++, JsonInput.text(body, "name"));
+        categories.write().put(category.id, created(category));
+        return category;
+    }
+
+    Category updateCategory(int categoryId, JsonNode body) {
+        String name = JsonInput.text(body, "name");
+        Category category = own(find(categories, categoryId));
+        category.name = name;
+        return category;
+    }
+
+    /**
+     * Deletes a category. Transactions assigned to the category become uncategorised, and rules assigning the
+     * category no longer match any transaction.
+     */
+    void deleteCategory(int categoryId) {
+        Category category = find(categories, categoryId);
+        categories.write().remove(categoryId);
+        for (Transaction transaction : transactions.read().values()) {
+            if (transaction.category == category) {
+                own(transaction).category = null;
+            }
+        }
+    }
+
+    Collection<CategoryRule> listRules() {
+        return rules.read().values();
+    }
+
+    CategoryRule getRule(int ruleId) {
+        return find(rules, ruleId);
+    }
+
+    CategoryRule createRule(JsonNode body) {
+        CategoryRule rule = new CategoryRule(nextId);
+        readRule(rule, body);
+        nextId++;
+        rules.write().put(rule.id, created(rule));
+        applyOnHistory(rule);
+        return rule;
+    }
+
+    CategoryRule updateRule(int ruleId, JsonNode body) {
+        CategoryRule rule = find(rules, ruleId);
+        CategoryRule update = new CategoryRule(ruleId);
+        readRule(update, body);
+        rule = own(rules, ruleId, rule, CategoryRule::copy);
+        rule.description = update.description;
+        rule.iBAN = update.iBAN;
+        rule.type = update.type;
+        rule.categoryId = update.categoryId;
+        rule.applyOnHistory = update.applyOnHistory;
+        applyOnHistory(rule);
+        return rule;
+    }
+
+    void deleteRule(int ruleId) {
+        find(rules, ruleId);
+        rules.write().remove(ruleId);
+    }
+
+    List<SavingGoal> listGoals() {
+        return new ArrayList<>(goals.read().values());
+    }
+
+    SavingGoal createGoal(JsonNode body) {
+        SavingGoal goal = new SavingGoal(nextId);
+        goal.name = JsonInput.text(body, "name");
+        goal.goal = positive(JsonInput.number(body, "goal"));
+        goal.savePerMonth = positive(JsonInput.number(body, "savePerMonth"));
+        goal.minBalanceRequired = body.has("minBalanceRequired") ? JsonInput.number(body, "minBalanceRequired") : 0;
+        goal.created = systemTime;
+        nextId++;
+        goals.write().put(goal.id, created(goal));
+        return goal;
+    }
+
+    void deleteGoal(int goalId) {
+        find(goals, goalId);
+        goals.write().remove(goalId);
+    }
+
+    /**
+     * Replays the transactions and saving goals of this session.
+     */
+    Ledger getLedger() {
+        return Ledger.of(transactions.read().values(), listGoals());
+    }
+
+    Collection<PaymentRequest> listPaymentRequests() {
+        return paymentRequests.read().values();
+    }
+
+    PaymentRequest createPaymentRequest(JsonNode body) {
+        PaymentRequest request = new PaymentRequest(nextId);
+        request.description = JsonInput.text(body, "description");
+        request.dueDate = JsonInput.timestamp(body, "due_date");
+        request.amount = positive(JsonInput.number(body, "amount"));
+        request.numberOfRequests = JsonInput.integer(body, "number_of_requests");
+        if (request.numberOfRequests < 1) {
+            throw ApiException.invalidInput();
+        }
+        nextId++;
+        paymentRequests.write().put(request.id, created(request));
+        return request;
+    }
+
+    /**
+     * Records that a resource has been created by this session, so it may be changed in place.
+     */
+    private <V> V created(V resource) {
+        if (owned != null) {
+            owned.add(resource);
+        }
+        return resource;
+    }
+
+    /**
+     * Returns a resource which may be changed in place: the resource itself if this session owns it, or otherwise a
+     * copy which replaces it in the resources of this session.
+     */
+    private <V> V own(Resources<V> resources, int id, V resource, UnaryOperator<V> copier) {
+        if (owned == null || owned.contains(resource)) {
+            return resource;
+        }
+        V copy = copier.apply(resource);
+        resources.write().put(id, copy);
+        owned.add(copy);
+        return copy;
+    }
+
+    /**
+     * Returns a category which may be changed in place, assigning the transactions of a shared category to its copy.
+     */
+    private Category own(Category category) {
+        Category copy = own(categories, category.id, category, Category::copy);
+        if (copy != category) {
+            for (Transaction transaction : transactions.read().values()) {
+                if (transaction.category == category) {
+                    own(transaction).category = copy;
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a transaction which may be changed in place, replacing a shared transaction by its copy in the payment
+     * requests it fills.
+     */
+    private Transaction own(Transaction transaction) {
+        Transaction copy = own(transactions, transaction.id, transaction, Transaction::copy);
+        if (copy != transaction) {
+            for (PaymentRequest request : paymentRequests.read().values()) {
+                int index = request.transactions.indexOf(transaction);
+                if (index >= 0) {
+                    own(request).transactions.set(index, copy);
+                }
+            }
+        }
+        return copy;
+    }
+
+    private PaymentRequest own(PaymentRequest request) {
+        return own(paymentRequests, request.id, request, PaymentRequest::copy);
+    }
+
+    private void readTransaction(Transaction transaction, JsonNode body) {
+        transaction.date = JsonInput.timestamp(body, "date");
+        transaction.amount = positive(JsonInput.number(body, "amount"));
+        transaction.externalIBAN = JsonInput.text(body, "externalIBAN");
+        transaction.type = JsonInput.text(body, "type");
+        if (!Transaction.DEPOSIT.equals(transaction.type) && !Transaction.WITHDRAWAL.equals(transaction.type)) {
+            throw ApiException.invalidInput();
+        }
+        transaction.description = JsonInput.optionalText(body, "description");
+        JsonNode category = body.get("category");
+        if (category != null && !category.isNull()) {
+            if (!category.isObject()) {
+                throw ApiException.invalidInput();
+            }
+            // Categories which no longer exist are ignored, in which case the category rules still apply.
+            transaction.category = categories.read().get(JsonInput.integer(category, "id"));
+        }
+    }
+
+    private void readRule(CategoryRule rule, JsonNode body) {
+        rule.description = JsonInput.text(body, "description");
+        rule.iBAN = JsonInput.text(body, "iBAN");
+        rule.type = JsonInput.text(body, "type");
+        if (!rule.type.isEmpty() && !Transaction.DEPOSIT.equals(rule.type)
+                && !Transaction.WITHDRAWAL.equals(rule.type)) {
+            throw ApiException.invalidInput();
+        }
+        rule.categoryId = JsonInput.integer(body, "category_id");
+        rule.applyOnHistory = JsonInput.bool(body, "applyOnHistory", false);
+        find(categories, rule.categoryId);
+    }
+
+    /**
+     * Returns the category of the first rule matching a transaction, or null if no rule matches.
+     */
+    private Category categorise(Transaction transaction) {
+        for (CategoryRule rule : rules.read().values()) {
+            Category category = categories.read().get(rule.categoryId);
+            if (category != null && rule.matches(transaction)) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Assigns the category of a rule to all existing transactions matching the rule, if the rule applies on history.
+     */
+    private void applyOnHistory(CategoryRule rule) {
+        if (!rule.applyOnHistory) {
+            return;
+        }
+        Category category = categories.read().get(rule.categoryId);
+        for (Transaction transaction : transactions.read().values()) {
+            if (rule.matches(transaction) && transaction.category != category) {
+                own(transaction).category = category;
+            }
+        }
+    }
+
+    private static double positive(double value) {
+        if (value <= 0) {
+            throw ApiException.invalidInput();
+        }
+        return value;
+    }
+
+    private static <T> T find(Resources<T> resources, int resourceId) {
+        T resource = resources.read().get(resourceId);
+        if (resource == null) {
+            throw ApiException.notFound();
+        }
+        return resource;
+    }
+
+    /**
+     * The resources of one kind by ID, in a map which may be shared with forks and is copied before it is changed.
+     */
+    private static final class Resources<T> {
+
+        private Map<Integer, T> map;
+        private boolean shared;
+
+        private Resources() {
+            map = new TreeMap<>();
+        }
+
+        private Resources(Map<Integer, T> map) {
+            this.map = map;
+            shared = true;
+        }
+
+        /**
+         * Returns the resources, which must not be changed.
+         */
+        private Map<Integer, T> read() {
+            return map;
+        }
+
+        /**
+         * Returns the resources to change, copying the map first if it is shared.
+         */
+        private Map<Integer, T> write() {
+            if (shared) {
+                map = new TreeMap<>(map);
+                shared = false;
+            }
+            return map;
+        }
+
+        /**
+         * Shares the map with a fork, after which neither copy changes it anymore.
+         */
+        private Resources<T> share() {
+            shared = true;
+            return new Resources<>(map);
+        }
+    }
+}
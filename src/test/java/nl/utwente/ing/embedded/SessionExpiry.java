@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes sessions from a {@link SessionTable} once they have been idle for too long or have reached their maximum
+ * lifetime, so the memory used by the embedded API does not grow with the number of sessions ever created.
+ * <p>
+ * Request threads only record when a session was last used. The thread of the {@link Shard} of the sessions keeps
+ * every session in a {@link TimingWheel}, scheduled at the deadline it had when it was scheduled. Once that deadline
+ * passes, the session is either scheduled again at its new deadline, if it has been used since, or removed. Expired
+ * sessions are thus freed a bucket at a time as the wheel advances, instead of by scanning all sessions.
+ */
+final class SessionExpiry {
+
+    private static final long TICK_MILLIS = 1000;
+
+    private final SessionTable sessions;
+    private final long idleMillis;
+    private final long lifetimeMillis;
+    private final TimingWheel<Session> wheel = new TimingWheel<>(tick(System.currentTimeMillis()));
+    private long now;
+
+    /**
+     * @param sessions the sessions to expire
+     * @param idleMillis the time after which sessions which have not been used expire
+     * @param lifetimeMillis the time after which sessions expire even if they are in use
+     */
+    SessionExpiry(SessionTable sessions, long idleMillis, long lifetimeMillis) {
+        this.sessions = sessions;
+        this.idleMillis = idleMillis;
+        this.lifetimeMillis = lifetimeMillis;
+    }
+
+    /**
+     * Starts removing expired sessions.
+     *
+     * @param executor the single thread which owns the sessions
+     */
+    void start(ScheduledExecutorService executor) {
+        executor.scheduleWithFixedDelay(() -> advance(System.currentTimeMillis()), TICK_MILLIS, TICK_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the expiry of a new session. Must be called on the thread which owns the sessions.
+     */
+    void add(Session session) {
+        schedule(session);
+    }
+
+    /**
+     * Returns whether a session has expired, even if the expiry thread has not removed it yet.
+     */
+    boolean isExpired(Session session, long now) {
+        return now >= deadline(session);
+    }
+
+    private long deadline(Session session) {
+        return Math.min(session.getLastAccess() + idleMillis, session.getCreated() + lifetimeMillis);
+    }
+
+    /**
+     * Removes the sessions which have expired at the given time, and schedules the sessions which have been used
+     * since they were scheduled again. Must be called on the thread which owns the sessions.
+     *
+     * @param now the current time in milliseconds
+     */
+    void advance(long now) {
+        this.now = now;
+        wheel.advance(tick(now), this::due);
+    }
+
+    private void due(Session session) {
+        if (session.isRemoved()) {
+            return;
+        }
+        if (isExpired(session, now)) {
+            sessions.remove(session);
+        } else {
+            schedule(session);
+        }
+    }
+
+    private void schedule(Session session) {
+        // Rounded up, so sessions are never seen before their deadline has passed.
+        wheel.schedule(session, tick(deadline(session) + TICK_MILLIS - 1));
+    }
+
+    private static long tick(long millis) {
+        return millis / TICK_MILLIS;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SessionExpiryTests {
+
+    private static final long IDLE_MILLIS = 10_000;
+    private static final long LIFETIME_MILLIS = 60_000;
+
+    /**
+     * Checks whether a session which has been used after it was scheduled is scheduled again at its new deadline
+     * when its original deadline passes, instead of being removed.
+     */
+    @Test
+    public void rescheduleAfterTouchTest() {
+        SessionTable table = new SessionTable(2);
+        SessionExpiry expiry = new SessionExpiry(table, IDLE_MILLIS, LIFETIME_MILLIS);
+        Session session = add(table, expiry);
+        long created = session.getCreated();
+
+        session.touch(created + 5_000);
+        expiry.advance(created + IDLE_MILLIS + 1_000);
+        assertFalse(session.isRemoved());
+        assertSame(session, table.get(session.getTokenHigh(), session.getTokenLow()));
+
+        expiry.advance(created + 5_000 + IDLE_MILLIS - 1_000);
+        assertFalse(session.isRemoved());
+
+        expiry.advance(created + 5_000 + IDLE_MILLIS + 1_000);
+        assertTrue(session.isRemoved());
+        assertNull(table.get(session.getTokenHigh(), session.getTokenLow()));
+    }
+
+    /**
+     * Checks whether a session which keeps being used is removed once it reaches its maximum lifetime.
+     */
+    @Test
+    public void lifetimeTest() {
+        SessionTable table = new SessionTable(2);
+        SessionExpiry expiry = new SessionExpiry(table, IDLE_MILLIS, LIFETIME_MILLIS);
+        Session session = add(table, expiry);
+        long created = session.getCreated();
+
+        for (long now = created + 1_000; now < created + LIFETIME_MILLIS; now += 1_000) {
+            session.touch(now);
+            expiry.advance(now);
+            assertFalse(session.isRemoved());
+        }
+        expiry.advance(created + LIFETIME_MILLIS + 1_000);
+        assertTrue(session.isRemoved());
+    }
+
+    /**
+     * Checks whether requests of a session are rejected once it has been idle for longer than the time given by the
+     * {@code api.embedded.sessionIdle} system property.
+     */
+    @Test
+    public void idleSessionRejectedTest() throws IOException, InterruptedException {
+        Sessions sessions;
+        String idle = System.setProperty("api.embedded.sessionIdle", "1");
+        try {
+            sessions = new Sessions();
+        } finally {
+            if (idle == null) {
+                System.clearProperty("api.embedded.sessionIdle");
+            } else {
+                System.setProperty("api.embedded.sessionIdle", idle);
+            }
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", new ApiHandler(sessions));
+        server.start();
+        try {
+            String baseUri = "http://" + server.getAddress().getHostString();
+            int port = server.getAddress().getPort();
+            String sessionId = given()
+                    .baseUri(baseUri)
+                    .port(port)
+                    .post("api/v1/sessions")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+            given()
+                    .baseUri(baseUri)
+                    .port(port)
+                    .header("X-session-ID", sessionId)
+                    .get("api/v1/transactions")
+                    .then()
+                    .statusCode(200);
+
+            Thread.sleep(1_500);
+            given()
+                    .baseUri(baseUri)
+                    .port(port)
+                    .header("X-session-ID", sessionId)
+                    .get("api/v1/transactions")
+                    .then()
+                    .statusCode(401);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static Session add(SessionTable table, SessionExpiry expiry) {
+        Session session = new Session(SessionToken.random(), SessionToken.random());
+        table.add(session);
+        expiry.add(session);
+        return session;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import nl.utwente.ing.RequestBodies;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SessionForkTests {
+
+    private static final String DATE = "2018-05-28T00:00:00.000Z";
+    private static final String IBAN = "NL39RABO0300065264";
+
+    private Session source;
+    private Category category;
+    private Transaction transaction;
+    private PaymentRequest request;
+
+    /**
+     * Creates a source session with a category, a payment request and a categorised deposit filling the request.
+     */
+    @Before
+    public void setUp() {
+        source = new Session(SessionToken.random(), SessionToken.random());
+        category = source.createCategory(body(RequestBodies.category("Groceries")));
+        request = source.createPaymentRequest(body(RequestBodies.paymentRequest("Dinner", DATE, 10, 1)));
+        transaction = source.createTransaction(body(RequestBodies.transaction(DATE, 10, IBAN, "deposit", "Dinner",
+                category.id, category.name)));
+    }
+
+    /**
+     * Checks whether adding a transaction to a fork leaves the existing resources shared with the source.
+     */
+    @Test
+    public void addSharesExistingResourcesTest() {
+        Session fork = source.fork(SessionToken.random(), SessionToken.random());
+        Transaction added = fork.createTransaction(body(RequestBodies.transaction(DATE, 5, IBAN, "withdrawal", null)));
+
+        assertSame(transaction, fork.getTransaction(transaction.id));
+        assertSame(category, fork.getCategory(category.id));
+        assertSame(request, fork.listPaymentRequests().iterator().next());
+        assertEquals(2, fork.listTransactions(0, 10, null).size());
+        assertEquals(1, source.listTransactions(0, 10, null).size());
+        assertSame(added, fork.getTransaction(added.id));
+    }
+
+    /**
+     * Checks whether renaming a category in a fork copies the category and its transactions, but not the source.
+     */
+    @Test
+    public void updateCategoryTest() {
+        Session fork = source.fork(SessionToken.random(), SessionToken.random());
+        fork.updateCategory(category.id, body(RequestBodies.category("Food")));
+
+        assertEquals("Groceries", source.getCategory(category.id).name);
+        assertEquals("Groceries", source.getTransaction(transaction.id).category.name);
+        assertEquals("Food", fork.getCategory(category.id).name);
+        assertSame(fork.getCategory(category.id), fork.getTransaction(transaction.id).category);
+        // The payment request of the fork is filled by the copy of the transaction.
+        PaymentRequest forkRequest = fork.listPaymentRequests().iterator().next();
+        assertSame(fork.getTransaction(transaction.id), forkRequest.transactions.get(0));
+        assertSame(transaction, request.transactions.get(0));
+    }
+
+    /**
+     * Checks whether changes to the source after forking are invisible to the fork.
+     */
+    @Test
+    public void changeSourceTest() {
+        Session fork = source.fork(SessionToken.random(), SessionToken.random());
+        source.updateTransaction(transaction.id, body(RequestBodies.transaction(DATE, 20, IBAN, "withdrawal", null)));
+        source.deleteCategory(category.id);
+
+        assertSame(transaction, fork.getTransaction(transaction.id));
+        assertEquals(10, fork.getTransaction(transaction.id).amount, 0.001);
+        assertSame(category, fork.getTransaction(transaction.id).category);
+        assertEquals(20, source.getTransaction(transaction.id).amount, 0.001);
+        assertNull(source.getTransaction(transaction.id).category);
+    }
+
+    /**
+     * Checks whether deleting a transaction of a fork removes it from the payment requests of the fork only.
+     */
+    @Test
+    public void deleteTransactionTest() {
+        Session fork = source.fork(SessionToken.random(), SessionToken.random());
+        fork.deleteTransaction(transaction.id);
+
+        assertEquals(0, fork.listPaymentRequests().iterator().next().transactions.size());
+        assertSame(transaction, request.transactions.get(0));
+        assertSame(transaction, source.getTransaction(transaction.id));
+    }
+
+    private static JsonNode body(String json) {
+        return JsonInput.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free open-addressing table of sessions, keyed by their 128-bit tokens.
+ * <p>
+ * Lookups never block or write shared state: they probe linearly from the hash of the token until they find the
+ * session or an empty slot, and the table is kept at most half full. Sessions are added by a compare-and-set on an
+ * empty slot and removed by replacing them with a tombstone, which later additions may reuse.
+ * <p>
+ * When the sessions and tombstones fill half of a table, the thread which filled it allocates a successor sized for
+ * the live sessions and moves them, copying every session before replacing its slot with a forwarding marker, so
+ * lookups can find it in one of both tables at all times. Tombstones are not moved, so the table shrinks again after
+ * many sessions have been removed. Additions which reach a forwarding marker continue in the successor. Once a table
+ * has been moved, lookups start at the oldest generation which has not been moved, also when a successor was resized
+ * again before its predecessor finished moving.
+ */
+final class SessionTable {
+
+    // Replaces the slots of a table which have been moved to its successor.
+    private static final Object MOVED = new Object();
+    // Replaces the slots of removed sessions.
+    private static final Object TOMBSTONE = new Object();
+
+    private final int minCapacity;
+    private final AtomicReference<Table> current;
+    private final LongAdder live = new LongAdder();
+
+    /**
+     * @param capacity the initial and minimum number of slots, rounded up to a power of two
+     */
+    SessionTable(int capacity) {
+        minCapacity = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+        current = new AtomicReference<>(new Table(minCapacity));
+    }
+
+    /**
+     * Returns the number of sessions in the table.
+     */
+    int size() {
+        return live.intValue();
+    }
+
+    /**
+     * Returns the number of table generations a lookup probes, which is one unless a resize is in progress.
+     */
+    int generations() {
+        int generations = 0;
+        for (Table table = current.get(); table != null; table = table.next.get()) {
+            generations++;
+        }
+        return generations;
+    }
+
+    /**
+     * Returns the session with the given token, or null if it is unknown.
+     */
+    Session get(long high, long low) {
+        int hash = hash(low);
+        for (Table table = current.get(); table != null; table = table.next.get()) {
+            // A session which is not in a table being resized may already have been added to its successor.
+            Session session = table.moved ? null : table.find(hash, high, low);
+            if (session != null) {
+                return session.isRemoved() ? null : session;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a session, which must have a token that is not in the table yet.
+     */
+    void add(Session session) {
+        live.increment();
+        Table table = current.get();
+        while (table.next.get() != null) {
+            table = table.next.get();
+        }
+        table.add(session, hash(session.getTokenLow()));
+    }
+
+    /**
+     * Removes a session. It is no longer returned by lookups once this method returns.
+     */
+    void remove(Session session) {
+        if (session.isRemoved()) {
+            return;
+        }
+        session.markRemoved();
+        live.decrement();
+        int hash = hash(session.getTokenLow());
+        for (Table table = current.get(); table != null; table = table.next.get()) {
+            table.remove(session, hash);
+        }
+    }
+
+    /**
+     * Points lookups past every table which has been moved to its successor. A successor may have been moved itself
+     * before its predecessor finished, in which case its own resize could not advance the current table.
+     */
+    private void advanceCurrent() {
+        Table table = current.get();
+        while (table.moved) {
+            Table next = table.next.get();
+            table = current.compareAndSet(table, next) ? next : current.get();
+        }
+    }
+
+    private static int hash(long low) {
+        // Tokens of real sessions are random, so the low bits are spread evenly already.
+        long bits = low * 0x9E3779B97F4A7C15L;
+        return (int) (bits ^ bits >>> 32);
+    }
+
+    /**
+     * A generation of the table, with a fixed number of slots.
+     */
+    private final class Table {
+
+        private final AtomicReferenceArray<Object> slots;
+        private final int mask;
+        // The number of slots which are not empty.
+        private final AtomicInteger used = new AtomicInteger();
+        private final AtomicReference<Table> next = new AtomicReference<>();
+        // Whether all slots have been moved to the successor, so lookups can skip this table.
+        private volatile boolean moved;
+
+        private Table(int capacity) {
+            slots = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+
+        /**
+         * Returns the session with the given token, or null if it is not in this table. Tombstones and forwarding
+         * markers are probed past, as the sessions behind them may not have been moved yet.
+         */
+        private Session find(int hash, long high, long low) {
+            for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                Object slot = slots.get(i);
+                if (slot == null) {
+                    return null;
+                }
+                if (slot instanceof Session && ((Session) slot).hasToken(high, low)) {
+                    return (Session) slot;
+                }
+            }
+            return null;
+        }
+
+        private void add(Session session, int hash) {
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                Object slot = slots.get(i);
+                if (slot == MOVED) {
+                    next.get().add(session, hash);
+                    return;
+                }
+                if (slot == TOMBSTONE && slots.compareAndSet(i, TOMBSTONE, session)) {
+                    return;
+                }
+                if (slot == null && slots.compareAndSet(i, null, session)) {
+                    if (used.incrementAndGet() > slots.length() / 2) {
+                        resize();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void remove(Session session, int hash) {
+            for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                Object slot = slots.get(i);
+                if (slot == null) {
+                    return;
+                }
+                // If the slot has been moved meanwhile, the session is removed from the successor instead.
+                if (slot == session) {
+                    slots.compareAndSet(i, session, TOMBSTONE);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Moves all sessions to a successor with room for four times the number of live sessions. Only the thread
+         * which installs the successor moves them; additions racing with it follow the forwarding markers.
+         */
+        private void resize() {
+            int capacity = Math.max(minCapacity, Integer.highestOneBit(Math.max(live.intValue(), 1) * 8 - 1));
+            Table successor = new Table(capacity);
+            if (!next.compareAndSet(null, successor)) {
+                return;
+            }
+            for (int i = 0; i < slots.length(); i++) {
+                while (true) {
+                    // Sessions are copied before being marked, so lookups can find them in either table meanwhile.
+                    Object slot = slots.get(i);
+                    if (slot instanceof Session && !((Session) slot).isRemoved()) {
+                        Session session = (Session) slot;
+                        int hash = hash(session.getTokenLow());
+                        successor.add(session, hash);
+                        // A removal which missed the copy has marked the session before, so it is seen here.
+                        if (session.isRemoved()) {
+                            successor.remove(session, hash);
+                        }
+                    }
+                    if (slots.compareAndSet(i, slot, MOVED)) {
+                        break;
+                    }
+                }
+            }
+            moved = true;
+            advanceCurrent();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SessionTableTests {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 2;
+    private static final int SESSIONS_PER_WRITER = 20_000;
+    // The number of sessions every writer keeps in the table, removing its oldest session for every session it adds.
+    private static final int LIVE_PER_WRITER = 500;
+
+    /**
+     * Checks whether lookups find every live session while other threads add and remove sessions concurrently.
+     * The table starts at its smallest capacity, so it is resized while growing, and again whenever the tombstones of
+     * removed sessions fill half of it.
+     */
+    @Test
+    public void concurrentAddGetRemoveTest() throws InterruptedException {
+        SessionTable table = new SessionTable(2);
+        // The live sessions of all writers. A session is only published once it has been added, and unpublished
+        // before it is removed.
+        AtomicReferenceArray<Session> published = new AtomicReferenceArray<>(WRITERS * LIVE_PER_WRITER);
+        AtomicBoolean done = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        for (int slot = 0; slot < published.length(); slot++) {
+                            Session session = published.get(slot);
+                            if (session != null) {
+                                Session found = table.get(session.getTokenHigh(), session.getTokenLow());
+                                // The session may have been removed since it was read.
+                                if (found != session && (found != null || !session.isRemoved())) {
+                                    fail("Live session " + session.getId() + " was not found");
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                int first = i * LIVE_PER_WRITER;
+                writers.add(executor.submit(() -> {
+                    for (int n = 0; n < SESSIONS_PER_WRITER; n++) {
+                        int slot = first + n % LIVE_PER_WRITER;
+                        Session oldest = published.getAndSet(slot, null);
+                        if (oldest != null) {
+                            table.remove(oldest);
+                            assertNull(table.get(oldest.getTokenHigh(), oldest.getTokenLow()));
+                        }
+
+                        Session session = new Session(SessionToken.random(), SessionToken.random());
+                        table.add(session);
+                        assertSame(session, table.get(session.getTokenHigh(), session.getTokenLow()));
+                        published.set(slot, session);
+                    }
+                }));
+            }
+
+            try {
+                await(writers);
+            } finally {
+                done.set(true);
+            }
+            await(readers);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(WRITERS * LIVE_PER_WRITER, table.size());
+        for (int slot = 0; slot < published.length(); slot++) {
+            Session session = published.get(slot);
+            assertSame(session, table.get(session.getTokenHigh(), session.getTokenLow()));
+        }
+    }
+
+    /**
+     * Checks whether lookups return to a single table after the successor of a table has been resized again while
+     * the table was still being moved into it. The resize of the first table is held up at a session which blocks
+     * when the resize checks whether it has been removed.
+     */
+    @Test
+    public void nestedResizeTest() throws InterruptedException, ExecutionException, TimeoutException {
+        SessionTable table = new SessionTable(2);
+        CountDownLatch moving = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        AtomicBoolean block = new AtomicBoolean(true);
+        Session blocking = new Session(SessionToken.random(), SessionToken.random()) {
+            @Override
+            boolean isRemoved() {
+                if (block.compareAndSet(true, false)) {
+                    moving.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.isRemoved();
+            }
+        };
+        table.add(blocking);
+
+        List<Session> sessions = new ArrayList<>();
+        sessions.add(blocking);
+        Session filling = new Session(SessionToken.random(), SessionToken.random());
+        sessions.add(filling);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // The second session fills the table, so this thread starts moving it to a successor.
+            Future<?> resize = executor.submit(() -> table.add(filling));
+            assertTrue(moving.await(10, TimeUnit.SECONDS));
+            assertEquals(2, table.generations());
+
+            // Additions meanwhile go to the successor, until it is resized as well.
+            while (table.generations() < 3) {
+                Session session = new Session(SessionToken.random(), SessionToken.random());
+                table.add(session);
+                sessions.add(session);
+            }
+
+            resume.countDown();
+            resize.get(10, TimeUnit.SECONDS);
+        } finally {
+            resume.countDown();
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, table.generations());
+        for (Session session : sessions) {
+            assertSame(session, table.get(session.getTokenHigh(), session.getTokenLow()));
+        }
+    }
+
+    /**
+     * Waits for tasks to finish, rethrowing the first failure of a task.
+     */
+    private static void await(List<Future<?>> tasks) throws InterruptedException {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import java.security.SecureRandom;
+
+/**
+ * Codec for session IDs, which are random 128-bit tokens written as 32 lowercase hexadecimal digits.
+ * <p>
+ * Tokens are decoded straight from the characters of a header value into two longs, without allocating. Values which
+ * are not exactly 32 hexadecimal digits are rejected after checking at most 32 characters.
+ */
+final class SessionToken {
+
+    /**
+     * The number of characters of a written token.
+     */
+    static final int LENGTH = 32;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private SessionToken() {
+    }
+
+    /**
+     * Returns 64 random bits of a new token. Tokens are unguessable, as they authorize every request of a session.
+     */
+    static long random() {
+        return RANDOM.nextLong();
+    }
+
+    static String format(long high, long low) {
+        char[] chars = new char[LENGTH];
+        for (int i = 0; i < 16; i++) {
+            chars[i] = HEX_DIGITS[(int) (high >>> (60 - 4 * i)) & 0xF];
+            chars[16 + i] = HEX_DIGITS[(int) (low >>> (60 - 4 * i)) & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns whether the given value is a written token, i.e. exactly {@link #LENGTH} hexadecimal digits.
+     */
+    static boolean isValid(CharSequence id) {
+        if (id == null || id.length() != LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            if (digit(id.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the high or the low half of a valid written token.
+     *
+     * @param id the written token
+     * @param offset 0 for the high half, 16 for the low half
+     * @return the bits of the half
+     */
+    static long decode(CharSequence id, int offset) {
+        long bits = 0;
+        for (int i = offset; i < offset + LENGTH / 2; i++) {
+            bits = bits << 4 | digit(id.charAt(i));
+        }
+        return bits;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sessions known to the embedded API, by ID, partitioned over {@link Shard shards}.
+ * <p>
+ * Session IDs are random 128-bit tokens, see {@link SessionToken}. The high bits of a token select the shard of the
+ * session, of which the lock-free {@link SessionTable} resolves the token. There are {@code api.embedded.shards}
+ * shards (default the number of available processors). Sessions expire once they have not been used for
+ * {@code api.embedded.sessionIdle} seconds, or {@code api.embedded.sessionLifetime} seconds after they have been
+ * created, after which their ID is rejected and their data is freed by a {@link SessionExpiry}.
+ */
+final class Sessions {
+
+    private final Shard[] shards;
+
+    Sessions() {
+        shards = new Shard[Math.max(1, Integer.getInteger("api.embedded.shards",
+                Runtime.getRuntime().availableProcessors()))];
+        int capacity = Integer.getInteger("api.embedded.sessions", 1024) / shards.length;
+        long idleMillis = TimeUnit.SECONDS.toMillis(Long.getLong("api.embedded.sessionIdle", 3600));
+        long lifetimeMillis = TimeUnit.SECONDS.toMillis(Long.getLong("api.embedded.sessionLifetime", 86400));
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, capacity, idleMillis, lifetimeMillis);
+        }
+    }
+
+    Session create() {
+        return add(new Session(SessionToken.random(), SessionToken.random()));
+    }
+
+    /**
+     * Creates a session which starts with the resources of the given session, see {@link Session#fork}. The fork is
+     * made on the shard of the source, after which the new session is added to its own shard.
+     *
+     * @param source the session to fork
+     * @return the new session
+     */
+    Session fork(Session source) {
+        return add(shardOf(source).execute(() -> source.fork(SessionToken.random(), SessionToken.random())));
+    }
+
+    /**
+     * Returns the session with the given ID and records that it is being used. Malformed IDs are rejected without
+     * probing any table.
+     *
+     * @param sessionId the ID given by the client, may be null
+     * @return the session
+     * @throws ApiException if there is no session with the given ID, or if it has expired
+     */
+    Session get(CharSequence sessionId) {
+        if (!SessionToken.isValid(sessionId)) {
+            throw ApiException.unauthorized();
+        }
+        long high = SessionToken.decode(sessionId, 0);
+        long low = SessionToken.decode(sessionId, SessionToken.LENGTH / 2);
+        Session session = shard(high).get(high, low, System.currentTimeMillis());
+        if (session == null) {
+            throw ApiException.unauthorized();
+        }
+        return session;
+    }
+
+    private Session add(Session session) {
+        Shard shard = shardOf(session);
+        return shard.execute(() -> {
+            shard.add(session);
+            return session;
+        });
+    }
+
+    /**
+     * Returns the shard which owns the given session.
+     */
+    Shard shardOf(Session session) {
+        return shard(session.getTokenHigh());
+    }
+
+    private Shard shard(long high) {
+        return shards[(int) ((high >>> 1) % shards.length)];
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A partition of the sessions of the embedded API, together with the single thread which executes all operations on
+ * them.
+ * <p>
+ * Sessions are assigned to a shard by their token. A shard owns the table its sessions are looked up in and the timing
+ * wheel which expires them. Only the thread of a shard ever reads or writes the data of its sessions, so sessions are
+ * not locked and requests of sessions on different shards never contend.
+ */
+final class Shard {
+
+    private final ScheduledExecutorService executor;
+    private final SessionTable sessions;
+    private final SessionExpiry expiry;
+
+    /**
+     * @param index the index of the shard, used to name its thread
+     * @param capacity the initial capacity of the session table of the shard
+     * @param idleMillis the time after which sessions which have not been used expire
+     * @param lifetimeMillis the time after which sessions expire even if they are in use
+     */
+    Shard(int index, int capacity, long idleMillis, long lifetimeMillis) {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "embedded-api-shard-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+        sessions = new SessionTable(capacity);
+        expiry = new SessionExpiry(sessions, idleMillis, lifetimeMillis);
+        expiry.start(executor);
+    }
+
+    /**
+     * Executes a task on the thread of this shard and waits for its result.
+     *
+     * @param task the task, which may use the sessions of this shard
+     * @return the result of the task
+     */
+    <T> T execute(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shard", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Adds a new session to this shard. Must be called on the thread of this shard.
+     */
+    void add(Session session) {
+        sessions.add(session);
+        expiry.add(session);
+    }
+
+    /**
+     * Returns the session with the given token and records that it is being used. May be called on any thread.
+     *
+     * @return the session, or null if there is no such session or if it has expired
+     */
+    Session get(long high, long low, long now) {
+        Session session = sessions.get(high, low);
+        if (session == null || expiry.isExpired(session, now)) {
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+}
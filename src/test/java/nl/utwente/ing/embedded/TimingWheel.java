@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel, which schedules values to be passed on once a deadline has passed.
+ * <p>
+ * Time is measured in ticks. The wheel has four levels of 64 buckets, where a bucket of level {@code n} spans
+ * {@code 64^n} ticks, so deadlines up to {@code 64^4} ticks ahead are scheduled in constant time. Whenever the time
+ * enters a new span of a higher level, the bucket of that span is cascaded into the lower levels. Deadlines further
+ * ahead are scheduled at the end of the wheel, so callers must check whether a value is actually due. The wheel is not
+ * thread-safe.
+ */
+final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int BUCKETS = 1 << BITS;
+    private static final int MASK = BUCKETS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = (1L << BITS * LEVELS) - 1;
+
+    @SuppressWarnings("unchecked")
+    private final Node<T>[][] buckets = (Node<T>[][]) new Node<?>[LEVELS][BUCKETS];
+    private long now;
+    private int size;
+
+    /**
+     * @param now the current tick
+     */
+    TimingWheel(long now) {
+        this.now = now;
+    }
+
+    /**
+     * Returns the number of scheduled values.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules a value. Values of which the deadline has passed are due at the next tick.
+     *
+     * @param value the value to schedule
+     * @param deadline the tick after which the value is due
+     */
+    void schedule(T value, long deadline) {
+        long delay = Math.min(Math.max(deadline - now, 1), MAX_DELAY);
+        place(new Node<>(value, now + delay));
+        size++;
+    }
+
+    /**
+     * Advances the wheel, passing every value which becomes due on to the given consumer. The consumer may schedule
+     * values again.
+     *
+     * @param tick the new current tick, which is ignored if it is not after the current tick
+     * @param consumer the consumer of due values
+     */
+    void advance(long tick, Consumer<? super T> consumer) {
+        while (now < tick) {
+            now++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((now & (1L << BITS * level) - 1) == 0) {
+                    Node<T> node = take(level);
+                    while (node != null) {
+                        Node<T> next = node.next;
+                        place(node);
+                        node = next;
+                    }
+                }
+            }
+            Node<T> node = take(0);
+            while (node != null) {
+                size--;
+                consumer.accept(node.value);
+                node = node.next;
+            }
+        }
+    }
+
+    private Node<T> take(int level) {
+        int index = (int) (now >>> BITS * level) & MASK;
+        Node<T> node = buckets[level][index];
+        buckets[level][index] = null;
+        return node;
+    }
+
+    private void place(Node<T> node) {
+        long delay = node.deadline - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << BITS * (level + 1)) {
+            level++;
+        }
+        int index = (int) (node.deadline >>> BITS * level) & MASK;
+        node.next = buckets[level][index];
+        buckets[level][index] = node;
+    }
+
+    /**
+     * A scheduled value, linked to the other values in its bucket.
+     */
+    private static class Node<T> {
+
+        private final T value;
+        private final long deadline;
+        private Node<T> next;
+
+        private Node(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TimingWheelTests {
+
+    // The number of ticks spanned by a bucket of the second, third and fourth level of the wheel.
+    private static final long[] LEVEL_SPANS = {64, 64 * 64, 64 * 64 * 64};
+
+    /**
+     * Checks whether values scheduled just before, at and just after the span of every level fire exactly at their
+     * deadline, both when the wheel starts at a span boundary and when it does not.
+     */
+    @Test
+    public void levelBoundariesTest() {
+        for (long start : new long[] {0, 12_345}) {
+            for (long span : LEVEL_SPANS) {
+                for (long offset = -1; offset <= 1; offset++) {
+                    long deadline = start + span + offset;
+                    TimingWheel<Long> wheel = new TimingWheel<>(start);
+                    wheel.schedule(deadline, deadline);
+
+                    wheel.advance(deadline - 1, value -> fail("Value due at " + value + " fired before " + deadline));
+                    assertEquals(1, wheel.size());
+
+                    List<Long> fired = new ArrayList<>();
+                    wheel.advance(deadline, fired::add);
+                    assertEquals(Long.valueOf(deadline), fired.get(0));
+                    assertEquals(0, wheel.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether values with deadlines spread over all levels fire at the first tick the wheel is advanced to at
+     * or after their deadline, when the wheel is advanced by several ticks at a time.
+     */
+    @Test
+    public void advanceInStepsTest() {
+        Random random = new Random(1);
+        long start = 12_345;
+        long end = start + 2 * LEVEL_SPANS[2];
+        TimingWheel<Long> wheel = new TimingWheel<>(start);
+        for (int i = 0; i < 100_000; i++) {
+            // Skewed towards short delays, so every level holds values.
+            long deadline = start + 1 + (long) (Math.pow(random.nextDouble(), 4) * (end - start - 1));
+            wheel.schedule(deadline, deadline);
+        }
+
+        long[] fired = {0};
+        for (long previous = start; previous < end; ) {
+            long from = previous;
+            long to = previous + 1 + random.nextInt(100);
+            wheel.advance(to, deadline -> {
+                assertTrue(deadline + " fired at " + to, deadline > from && deadline <= to);
+                fired[0]++;
+            });
+            previous = to;
+        }
+        assertEquals(100_000, fired[0]);
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Checks whether a value scheduled again by the consumer fires at its new deadline.
+     */
+    @Test
+    public void rescheduleFromConsumerTest() {
+        TimingWheel<Long> wheel = new TimingWheel<>(0);
+        wheel.schedule(10L, 10);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(10, deadline -> wheel.schedule(5_000L, 5_000));
+        wheel.advance(4_999, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(5_000, fired::add);
+        assertEquals(1, fired.size());
+        assertEquals(Long.valueOf(5_000), fired.get(0));
+    }
+}
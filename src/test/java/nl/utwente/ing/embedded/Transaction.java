@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018, Joost Prins <github.com/joostprins>, Tom Leemreize <https://github.com/oplosthee>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package nl.utwente.ing.embedded;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import nl.utwente.ing.Timestamps;
+
+import java.io.IOException;
+
+/**
+ * A deposit or withdrawal of a session. Amounts are always positive; the type determines the sign of the change in
+ * balance.
+ */
+final class Transaction {
+
+    static final String DEPOSIT = "deposit";
+    static final String WITHDRAWAL = "withdrawal";
+
+    final int id;
+    long date;
+    double amount;
+    String externalIBAN;
+    String type;
+    String description;
+    // The assigned category, or null if the transaction has not been categorised.
+    Category category;
+
+    Transaction(int id) {
+        this.id = id;
+    }
+
+    Transaction copy() {
+        Transaction copy = new Transaction(id);
+        copy.date = date;
+        copy.amount = amount;
+        copy.externalIBAN = externalIBAN;
+        copy.type = type;
+        copy.description = description;
+        copy.category = category;
+        return copy;
+    }
+
+    /**
+     * Returns the change in balance caused by this transaction.
+     */
+    double getBalanceChange() {
+        return DEPOSIT.equals(type) ? amount : -amount;
+    }
+
+    void write(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", id);
+        generator.writeStringField("date", Timestamps.format(date));
+        generator.writeNumberField("amount", amount);
+        generator.writeStringField("externalIBAN", externalIBAN);
+        generator.writeStringField("type", type);
+        if (description != null) {
+            generator.writeStringField("description", description);
+        }
+        // The category is a required field, so transactions without a category get an empty object.
+        generator.writeObjectFieldStart("category");
+        if (category != null) {
+            generator.writeNumberField("id", category.id);
+            generator.writeStringField("name", category.name);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+}